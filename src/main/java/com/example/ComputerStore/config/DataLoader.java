@@ -2,15 +2,19 @@ package com.example.ComputerStore.config;
 
 import com.example.ComputerStore.entity.User;
 import com.example.ComputerStore.entity.Category;
+import com.example.ComputerStore.entity.Product;
 import com.example.ComputerStore.enumeric.TypeLogin;
 import com.example.ComputerStore.repository.UserRepository;
 import com.example.ComputerStore.repository.CategoryRepository;
+import com.example.ComputerStore.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * DataLoader - Tạo admin user mặc định khi khởi động ứng dụng
  */
@@ -21,12 +25,15 @@ public class DataLoader implements CommandLineRunner {
     
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
     private final PasswordEncoder passwordEncoder;
 
     @Override
     public void run(String... args) throws Exception {
         createDefaultAdminUser();
         createDefaultCategories();
+        backfillProductFinalPrice();
+        backfillProductSearchKey();
     }
     
     private void createDefaultAdminUser() {
@@ -74,4 +81,23 @@ public class DataLoader implements CommandLineRunner {
             log.info("💡 Use this UUID in Postman: {}", firstCategory.getId());
         }
     }
-}
\ No newline at end of file
+    
+    private void backfillProductFinalPrice() {
+        // Product tạo trước khi có cột final_price
+        int updated = productRepository.backfillFinalPrice();
+        if (updated > 0) {
+            log.info("✅ Backfilled final_price for {} products", updated);
+        }
+    }
+    
+    private void backfillProductSearchKey() {
+        // search_key cần bỏ dấu bằng Java (TextNormalizer) nên không làm được bằng một câu UPDATE
+        List<Product> products = productRepository.findBySearchKeyIsNull();
+        if (products.isEmpty()) {
+            return;
+        }
+        products.forEach(product -> product.setSearchKey(product.buildSearchKey()));
+        productRepository.saveAll(products);
+        log.info("✅ Backfilled search_key for {} products", products.size());
+    }
+}
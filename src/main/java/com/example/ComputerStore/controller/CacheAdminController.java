@@ -0,0 +1,62 @@
+package com.example.ComputerStore.controller;
+
+import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.service.AbandonedCartSweeper;
+import com.example.ComputerStore.service.CartSummaryCache;
+import com.example.ComputerStore.service.CartWriteBehindStore;
+import com.example.ComputerStore.service.IdempotencyStore;
+import com.example.ComputerStore.service.ProductCatalogCache;
+import com.example.ComputerStore.service.ProductSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class CacheAdminController {
+
+    private final ProductCatalogCache productCatalogCache;
+    private final CartSummaryCache cartSummaryCache;
+    private final CartWriteBehindStore cartWriteBehindStore;
+    private final AbandonedCartSweeper abandonedCartSweeper;
+    private final IdempotencyStore idempotencyStore;
+    private final ProductSuggestIndex productSuggestIndex;
+
+    /**
+     * Get hit / miss / eviction counters of the in-memory caches and cart sweep metrics (Admin only)
+     * GET /api/admin/cache/stats
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getCacheStats() {
+        List<Map<String, Object>> stats = new ArrayList<>(productCatalogCache.stats());
+        stats.add(cartSummaryCache.stats());
+        stats.add(cartWriteBehindStore.stats());
+        stats.add(abandonedCartSweeper.stats());
+        stats.add(idempotencyStore.stats());
+        stats.add(productSuggestIndex.stats());
+        return ResponseEntity.ok(ApiResponse.success("Get cache stats successfully", stats));
+    }
+
+    /**
+     * Clear the in-memory caches (Admin only)
+     * POST /api/admin/cache/clear
+     */
+    @PostMapping("/clear")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Object>> clearCaches() {
+        log.info("Clearing in-memory caches");
+        productCatalogCache.invalidateAll();
+        cartSummaryCache.invalidateAll();
+        return ResponseEntity.ok(ApiResponse.success("Clear caches successfully"));
+    }
+}
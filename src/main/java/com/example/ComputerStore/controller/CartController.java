@@ -1,11 +1,15 @@
 package com.example.ComputerStore.controller;
 
 import com.example.ComputerStore.dto.request.AddToCartDto;
+import com.example.ComputerStore.dto.request.CartBatchDto;
+import com.example.ComputerStore.dto.request.CheckoutDto;
 import com.example.ComputerStore.dto.request.UpdateCartInfoDto;
 import com.example.ComputerStore.dto.request.UpdateCartQuantityDto;
 import com.example.ComputerStore.dto.response.CartResponseDto;
 import com.example.ComputerStore.dto.response.CartSummaryDto;
+import com.example.ComputerStore.dto.response.CheckoutResponseDto;
 import com.example.ComputerStore.service.CartService;
+import com.example.ComputerStore.service.CheckoutService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -25,6 +29,7 @@ import java.util.UUID;
 public class CartController {
 
     private final CartService cartService;
+    private final CheckoutService checkoutService;
 
     /**
      * Thêm sản phẩm vào giỏ hàng
@@ -46,6 +51,26 @@ public class CartController {
         }
     }
 
+    /**
+     * Thêm / cập nhật / xóa nhiều sản phẩm trong một request
+     * POST /api/cart/{userId}/batch
+     */
+    @PostMapping("/{userId}/batch")
+    public ResponseEntity<List<CartResponseDto>> applyCartBatch(
+            @PathVariable UUID userId,
+            @Valid @RequestBody CartBatchDto cartBatchDto) {
+        
+        log.info("Applying {} cart operations for user: {}", cartBatchDto.getOperations().size(), userId);
+        
+        try {
+            List<CartResponseDto> cartItems = cartService.applyCartBatch(userId, cartBatchDto);
+            return ResponseEntity.ok(cartItems);
+        } catch (RuntimeException e) {
+            log.error("Error applying cart batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Lấy giỏ hàng của user
      * GET /api/cart/{userId}
@@ -281,4 +306,24 @@ public class CartController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Đặt hàng toàn bộ giỏ hàng
+     * POST /api/cart/{userId}/checkout
+     */
+    @PostMapping("/{userId}/checkout")
+    public ResponseEntity<CheckoutResponseDto> checkout(
+            @PathVariable UUID userId,
+            @Valid @RequestBody CheckoutDto checkoutDto) {
+        
+        log.info("Checking out cart for user: {}", userId);
+        
+        try {
+            CheckoutResponseDto response = checkoutService.checkout(userId, checkoutDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RuntimeException e) {
+            log.error("Error checking out cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
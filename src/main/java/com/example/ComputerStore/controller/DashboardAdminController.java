@@ -0,0 +1,31 @@
+package com.example.ComputerStore.controller;
+
+import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.service.PaymentRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/dashboard")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class DashboardAdminController {
+
+    private final PaymentRollupService paymentRollupService;
+
+    /**
+     * Rebuild the revenue rollup tables from payment history (Admin only)
+     * POST /api/admin/dashboard/rollups/rebuild
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Object>> rebuildRollups() {
+        log.info("Rebuilding payment rollups");
+        paymentRollupService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Rebuild payment rollups successfully"));
+    }
+}
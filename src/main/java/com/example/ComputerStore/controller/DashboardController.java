@@ -122,17 +122,55 @@ public class DashboardController {
         }
     }
     
+    /**
+     * Get approximate distinct buyers - GET /api/dashboard/buyers
+     */
+    @GetMapping("/buyers")
+    public ResponseEntity<ApiResponse<Object>> getBuyerStats(@RequestParam(defaultValue = "month") String period) {
+        try {
+            ApiResponse<Map<String, Object>> response = dashboardService.getBuyerStats(period);
+            if (response.isSuccess()) {
+                return ResponseEntity.ok(ApiResponse.success(response.getMessage(), response.getData()));
+            } else {
+                return ResponseEntity.badRequest().body(ApiResponse.error(response.getMessage()));
+            }
+            
+        } catch (Exception e) {
+            log.error("Buyer stats error: ", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get approximate order value percentiles - GET /api/dashboard/order-values
+     */
+    @GetMapping("/order-values")
+    public ResponseEntity<ApiResponse<Object>> getOrderValueStats(@RequestParam(defaultValue = "month") String period) {
+        try {
+            ApiResponse<Map<String, Object>> response = dashboardService.getOrderValueStats(period);
+            if (response.isSuccess()) {
+                return ResponseEntity.ok(ApiResponse.success(response.getMessage(), response.getData()));
+            } else {
+                return ResponseEntity.badRequest().body(ApiResponse.error(response.getMessage()));
+            }
+            
+        } catch (Exception e) {
+            log.error("Order value stats error: ", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     /**
      * Get pie chart data - GET /api/dashboard/pie-chart
-     * TODO: Implement dedicated pie chart functionality in DashboardService
      */
     @GetMapping("/pie-chart")
     public ResponseEntity<ApiResponse<Object>> getPieChartData() {
         try {
-            // Temporary implementation - return basic stats
-            ApiResponse<Map<String, Object>> response = dashboardService.getDashboardStats();
+            ApiResponse<Map<String, Object>> response = dashboardService.getPieChartData();
             if (response.isSuccess()) {
-                return ResponseEntity.ok(ApiResponse.success("Lấy dữ liệu biểu đồ tròn thành công", response.getData()));
+                return ResponseEntity.ok(ApiResponse.success(response.getMessage(), response.getData()));
             } else {
                 return ResponseEntity.badRequest().body(ApiResponse.error(response.getMessage()));
             }
@@ -0,0 +1,55 @@
+package com.example.ComputerStore.controller;
+
+import com.example.ComputerStore.dto.request.UpdateOrderStatusDto;
+import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.service.OrderService;
+import com.example.ComputerStore.service.OrderTaskQueue;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class OrderAdminController {
+
+    private final OrderService orderService;
+    private final OrderTaskQueue orderTaskQueue;
+
+    /**
+     * Queue a status change of an order; stock, revenue rollups and mails are updated in the background (Admin only)
+     * PUT /api/admin/orders/{idPayment}/status
+     */
+    @PutMapping("/{idPayment}/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Object>> updateOrderStatus(
+            @PathVariable String idPayment,
+            @Valid @RequestBody UpdateOrderStatusDto updateOrderStatusDto) {
+        try {
+            orderService.requestStatusChange(idPayment, updateOrderStatusDto.getStatus());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Order status change queued"));
+        } catch (RuntimeException e) {
+            log.error("Error queueing order status change: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get order processing queue counters (Admin only)
+     * GET /api/admin/orders/queue/stats
+     */
+    @GetMapping("/queue/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getQueueStats() {
+        return ResponseEntity.ok(ApiResponse.success("Get order queue stats successfully", orderTaskQueue.stats()));
+    }
+}
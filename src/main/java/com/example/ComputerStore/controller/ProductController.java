@@ -3,7 +3,11 @@ package com.example.ComputerStore.controller;
 import com.example.ComputerStore.dto.request.CreateProductDto;
 import com.example.ComputerStore.dto.request.UpdateProductDto;
 import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.dto.response.CursorPageResponseDto;
+import com.example.ComputerStore.dto.response.FacetedSearchResponseDto;
 import com.example.ComputerStore.dto.response.ProductResponseDto;
+import com.example.ComputerStore.dto.response.ProductSnapshot;
+import com.example.ComputerStore.dto.response.SuggestionDto;
 import com.example.ComputerStore.enumeric.ComponentType;
 import com.example.ComputerStore.service.ProductService;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +33,8 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class ProductController {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final ProductService productService;
     
     /**
@@ -51,12 +57,30 @@ public class ProductController {
      * GET /api/get-products
      */
     @GetMapping("/get-products")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProducts() {
+    public ResponseEntity<ApiResponse<List<ProductSnapshot>>> getProducts() {
         
-        List<ProductResponseDto> products = productService.getAllProducts();
+        List<ProductSnapshot> products = productService.getAllProducts();
         return ResponseEntity.ok(ApiResponse.success("Get products successfully", products));
     }
     
+    /**
+     * Get products for infinite scroll / crawlers with keyset pagination
+     * GET /api/products/catalog?cursor=...&size=24
+     */
+    @GetMapping("/products/catalog")
+    public ResponseEntity<ApiResponse<CursorPageResponseDto<ProductSnapshot>>> getProductCatalog(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int size) {
+        
+        try {
+            CursorPageResponseDto<ProductSnapshot> products = productService.getProductsByCursor(
+                    cursor, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+            return ResponseEntity.ok(ApiResponse.success("Get product catalog successfully", products));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     /**
      * Update product (Admin only)  
      * POST /api/update-product
@@ -88,7 +112,7 @@ public class ProductController {
     }
     
     /**
-     * Get products grouped by categories
+     * Get products grouped by categories (newest products, capped per category)
      * GET /api/get-products-by-categories
      */
     @GetMapping("/get-products-by-categories")
@@ -118,12 +142,12 @@ public class ProductController {
      * GET /api/get-product-by-component-type
      */
     @GetMapping("/get-product-by-component-type")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductByComponentType(
+    public ResponseEntity<ApiResponse<List<ProductSnapshot>>> getProductByComponentType(
             @RequestParam String componentType) {
         
         try {
             ComponentType type = ComponentType.valueOf(componentType.toUpperCase());
-            List<ProductResponseDto> products = productService.getProductsByComponentType(type);
+            List<ProductSnapshot> products = productService.getProductsByComponentType(type);
             
             return ResponseEntity.ok(ApiResponse.success(
                     "Get product by component type successfully", products));
@@ -138,13 +162,15 @@ public class ProductController {
      * GET /api/get-product-by-id-category
      */
     @GetMapping("/get-product-by-id-category")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductByIdCategory(
+    public ResponseEntity<ApiResponse<Page<ProductSnapshot>>> getProductByIdCategory(
             @RequestParam UUID id,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) String productIds) {
+            @RequestParam(required = false) String productIds,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size) {
         
         // Parse productIds string to List<UUID>
         List<UUID> productIdList = null;
@@ -160,8 +186,8 @@ public class ProductController {
             }
         }
         
-        List<ProductResponseDto> products = productService.getProductsByCategory(
-                id, search, minPrice, maxPrice, sort, productIdList);
+        Page<ProductSnapshot> products = productService.getProductsByCategory(
+                id, search, minPrice, maxPrice, sort, productIdList, toPageable(page, size));
         
         return ResponseEntity.ok(ApiResponse.success(
                 "Get product by id category successfully", products));
@@ -172,9 +198,9 @@ public class ProductController {
      * GET /api/get-product-hot-sale
      */
     @GetMapping("/get-product-hot-sale")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductHotSale() {
+    public ResponseEntity<ApiResponse<List<ProductSnapshot>>> getProductHotSale() {
         
-        List<ProductResponseDto> products = productService.getHotSaleProducts();
+        List<ProductSnapshot> products = productService.getHotSaleProducts();
         return ResponseEntity.ok(ApiResponse.success(
                 "Get product hot sale successfully", products));
     }
@@ -184,12 +210,14 @@ public class ProductController {
      * GET /api/get-product-search
      */
     @GetMapping("/get-product-search")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductSearch(
+    public ResponseEntity<ApiResponse<Page<ProductSnapshot>>> getProductSearch(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) String productIds) {
+            @RequestParam(required = false) String productIds,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size) {
         
         // Parse productIds
         List<UUID> productIdList = null;
@@ -205,26 +233,85 @@ public class ProductController {
             }
         }
         
-        List<ProductResponseDto> products = productService.searchProducts(
-                search, minPrice, maxPrice, sort, productIdList);
+        Page<ProductSnapshot> products = productService.searchProducts(
+                search, minPrice, maxPrice, sort, productIdList, toPageable(page, size));
         
         return ResponseEntity.ok(ApiResponse.success(
                 "Get product search successfully", products));
     }
     
+    /**
+     * Autocomplete suggestions while typing in the search box
+     * GET /api/products/suggest?q=rtx&limit=8
+     */
+    @GetMapping("/products/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionDto>>> getProductSuggestions(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        
+        List<SuggestionDto> suggestions = productService.suggestProducts(q, limit);
+        return ResponseEntity.ok(ApiResponse.success("Get product suggestions successfully", suggestions));
+    }
+    
+    /**
+     * Search products by category with facet counts for the filter sidebar
+     * GET /api/products/faceted-search?category=...&componentType=VGA&minPrice=...&inStock=true&discountTier=2
+     */
+    @GetMapping("/products/faceted-search")
+    public ResponseEntity<ApiResponse<FacetedSearchResponseDto>> getProductFacetedSearch(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String componentType,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer discountTier,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size) {
+        
+        UUID categoryId = null;
+        if (category != null && !category.equals("all")) {
+            try {
+                categoryId = UUID.fromString(category);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(
+                        ApiResponse.error("Invalid category ID format"));
+            }
+        }
+        
+        ComponentType componentTypeEnum = null;
+        if (componentType != null && !componentType.trim().isEmpty()) {
+            try {
+                componentTypeEnum = ComponentType.valueOf(componentType.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(
+                        ApiResponse.error("Invalid component type: " + componentType));
+            }
+        }
+        
+        FacetedSearchResponseDto result = productService.searchProductsWithFacets(
+                categoryId, search, componentTypeEnum, minPrice, maxPrice, inStock, discountTier, sort,
+                toPageable(page, size));
+        
+        return ResponseEntity.ok(ApiResponse.success("Get faceted product search successfully", result));
+    }
+    
     /**
      * Search products by category with filters
      * GET /api/get-product-search-by-category
      */
     @GetMapping("/get-product-search-by-category")
-    public ResponseEntity<ApiResponse<List<ProductResponseDto>>> getProductSearchByCategory(
+    public ResponseEntity<ApiResponse<Page<ProductSnapshot>>> getProductSearchByCategory(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) String productIds,
-            @RequestParam(required = false) String componentType) {
+            @RequestParam(required = false) String componentType,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size) {
         
         // Parse category ID (handle "all" case from NodeJS)
         UUID categoryId = null;
@@ -262,12 +349,18 @@ public class ProductController {
             }
         }
         
-        List<ProductResponseDto> products = productService.searchProductsByCategory(
-                categoryId, search, minPrice, maxPrice, sort, productIdList, componentTypeEnum);
+        Page<ProductSnapshot> products = productService.searchProductsByCategory(
+                categoryId, search, minPrice, maxPrice, sort, productIdList, componentTypeEnum,
+                toPageable(page, size));
         
         return ResponseEntity.ok(ApiResponse.success(
                 "Get product search by category successfully", products));
     }
-
-
-}
\ No newline at end of file
+    
+    /**
+     * Giới hạn page size để mỗi response có kích thước bị chặn
+     */
+    private Pageable toPageable(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ComputerStore.controller;
+
+import com.example.ComputerStore.dto.request.CreateProductPreviewDto;
+import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.dto.response.ProductPreviewResponseDto;
+import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.JwtService;
+import com.example.ComputerStore.service.ProductPreviewService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * ProductPreviewController - REST API endpoints cho đánh giá sản phẩm
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ProductPreviewController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductPreviewService productPreviewService;
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+
+    /**
+     * Đánh giá sản phẩm
+     * POST /api/previews
+     */
+    @PostMapping("/previews")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse<ProductPreviewResponseDto>> createPreview(
+            @Valid @RequestBody CreateProductPreviewDto createProductPreviewDto,
+            HttpServletRequest request) {
+        try {
+            UUID userId = getUserIdFromRequest(request);
+
+            ProductPreviewResponseDto response = productPreviewService.createPreview(userId, createProductPreviewDto);
+
+            return ResponseEntity.ok(ApiResponse.success("Đánh giá sản phẩm thành công", response));
+
+        } catch (Exception e) {
+            log.error("Create preview error: ", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Xóa đánh giá của mình
+     * DELETE /api/previews/{previewId}
+     */
+    @DeleteMapping("/previews/{previewId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse<Object>> deletePreview(
+            @PathVariable UUID previewId,
+            HttpServletRequest request) {
+        try {
+            UUID userId = getUserIdFromRequest(request);
+
+            productPreviewService.deletePreview(userId, previewId);
+
+            return ResponseEntity.ok(ApiResponse.success("Xóa đánh giá thành công"));
+
+        } catch (Exception e) {
+            log.error("Delete preview error: ", e);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Lấy đánh giá của sản phẩm
+     * GET /api/products/previews?productId=...&page=0&size=10
+     */
+    @GetMapping("/products/previews")
+    public ResponseEntity<ApiResponse<Page<ProductPreviewResponseDto>>> getPreviewsByProduct(
+            @RequestParam UUID productId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Page<ProductPreviewResponseDto> previews = productPreviewService.getPreviewsByProduct(
+                productId, PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+        return ResponseEntity.ok(ApiResponse.success("Lấy đánh giá sản phẩm thành công", previews));
+    }
+
+    /**
+     * Extract user ID from JWT token in request
+     */
+    private UUID getUserIdFromRequest(HttpServletRequest request) {
+        String token = extractTokenFromRequest(request);
+        String email = jwtService.extractUsername(token);
+
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User không tồn tại"))
+                .getId();
+    }
+
+    /**
+     * Extract JWT token from Authorization header
+     */
+    private String extractTokenFromRequest(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        throw new RuntimeException("Token không hợp lệ");
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.ComputerStore.controller;
+
+import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.enumeric.ExportFormat;
+import com.example.ComputerStore.service.ReportExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/reports")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ReportExportController {
+
+    private final ReportExportService reportExportService;
+
+    /**
+     * Stream payments created between two dates as CSV or NDJSON (Admin only)
+     * GET /api/admin/reports/payments?from=2026-09-01&to=2026-09-30&format=csv
+     */
+    @GetMapping("/payments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportPayments(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        return export("payments", from, to, format,
+                exportFormat -> out -> reportExportService.exportPayments(from, to, exportFormat, out));
+    }
+
+    /**
+     * Stream the daily sales report (revenue / orders / quantity per status, payment type
+     * and component type) between two dates as CSV or NDJSON (Admin only)
+     * GET /api/admin/reports/sales?from=2026-09-01&to=2026-09-30&format=ndjson
+     */
+    @GetMapping("/sales")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportSalesReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format) {
+
+        return export("sales", from, to, format,
+                exportFormat -> out -> reportExportService.exportSalesReport(from, to, exportFormat, out));
+    }
+
+    // Helper methods
+    private interface ExportBody {
+        StreamingResponseBody forFormat(ExportFormat format);
+    }
+
+    private ResponseEntity<?> export(String name, LocalDate from, LocalDate to, String format, ExportBody body) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("'to' must not be before 'from'"));
+        }
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Unsupported export format: " + format));
+        }
+
+        log.info("Exporting {} from {} to {} as {}", name, from, to, exportFormat);
+        String filename = name + "-" + from + "_" + to + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body.forFormat(exportFormat));
+    }
+}
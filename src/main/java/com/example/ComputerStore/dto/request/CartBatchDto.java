@@ -0,0 +1,23 @@
+package com.example.ComputerStore.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Danh sách thao tác giỏ hàng được áp dụng theo thứ tự trong cùng một transaction
+public class CartBatchDto {
+
+    @NotEmpty(message = "Danh sách thao tác không được để trống")
+    @Size(max = 100, message = "Tối đa 100 thao tác mỗi lần")
+    private List<@Valid CartOperationDto> operations;
+}
@@ -0,0 +1,28 @@
+package com.example.ComputerStore.dto.request;
+
+import com.example.ComputerStore.enumeric.CartOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Một thao tác trên giỏ hàng; quantity bắt buộc với ADD / UPDATE, bỏ qua với REMOVE
+public class CartOperationDto {
+
+    @NotNull(message = "Loại thao tác không được để trống")
+    private CartOperationType action;
+
+    @NotNull(message = "Product ID không được để trống")
+    private UUID productId;
+
+    @Min(value = 1, message = "Số lượng phải lớn hơn 0")
+    private Integer quantity;
+}
@@ -0,0 +1,30 @@
+package com.example.ComputerStore.dto.request;
+
+import com.example.ComputerStore.enumeric.PaymentType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Đặt hàng từ giỏ hàng; thông tin giao hàng bỏ trống thì lấy từ giỏ hàng (updateCartInfo)
+public class CheckoutDto {
+
+    @NotNull(message = "Phương thức thanh toán không được để trống")
+    private PaymentType typePayment;
+
+    @Size(min = 2, max = 100, message = "Họ tên phải từ 2-100 ký tự")
+    private String fullName;
+
+    @Pattern(regexp = "^[0-9]{10,11}$", message = "Số điện thoại không hợp lệ")
+    private String phone;
+
+    @Size(min = 10, max = 255, message = "Địa chỉ phải từ 10-255 ký tự")
+    private String address;
+}
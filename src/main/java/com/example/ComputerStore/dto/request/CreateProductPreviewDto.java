@@ -0,0 +1,31 @@
+package com.example.ComputerStore.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Nhận dữ liệu khi user đánh giá sản phẩm
+public class CreateProductPreviewDto {
+
+    @NotNull(message = "Product ID không được để trống")
+    private UUID productId;
+
+    @NotNull(message = "Rating không được để trống")
+    @Min(value = 1, message = "Rating phải từ 1 đến 5")
+    @Max(value = 5, message = "Rating phải từ 1 đến 5")
+    private Integer rating;
+
+    @Size(max = 5000, message = "Nội dung đánh giá tối đa 5000 ký tự")
+    private String content;
+}
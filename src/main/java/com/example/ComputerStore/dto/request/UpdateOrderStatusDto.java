@@ -0,0 +1,19 @@
+package com.example.ComputerStore.dto.request;
+
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Đổi trạng thái đơn hàng (mọi payment cùng idPayment)
+public class UpdateOrderStatusDto {
+
+    @NotNull(message = "Trạng thái không được để trống")
+    private PaymentStatus status;
+}
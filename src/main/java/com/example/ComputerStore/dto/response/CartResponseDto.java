@@ -32,7 +32,7 @@ public class CartResponseDto {
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
-    @Builder
+    @Builder(toBuilder = true)
     public static class ProductInCartDto {
         private UUID productId;
         private String name;
@@ -0,0 +1,42 @@
+package com.example.ComputerStore.dto.response;
+
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Kết quả đặt hàng: các payment của đơn dùng chung idPayment
+public class CheckoutResponseDto {
+
+    private String idPayment;
+    private String typePayment;
+    private PaymentStatus status;
+    private int totalItems;
+    private int totalQuantity;
+    private BigDecimal totalPrice;
+    private String fullName;
+    private String phone;
+    private String address;
+    private List<CheckoutItemDto> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CheckoutItemDto {
+        private UUID paymentId;
+        private UUID productId;
+        private String productName;
+        private int quantity;
+        private BigDecimal totalPrice;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ComputerStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Trang kết quả theo cursor (keyset pagination), nextCursor = null khi đã hết dữ liệu
+public class CursorPageResponseDto<T> {
+
+    private List<T> items;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+}
@@ -0,0 +1,35 @@
+package com.example.ComputerStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Trang kết quả tìm kiếm kèm số lượng theo từng bộ lọc (facet) cho sidebar
+public class FacetedSearchResponseDto {
+
+    private Page<ProductSnapshot> products;
+    private List<FacetCountDto> componentTypes;
+    private List<FacetCountDto> priceRanges;
+    private List<FacetCountDto> stock;
+    private List<FacetCountDto> discountTiers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FacetCountDto {
+        private String key;
+        private BigDecimal from; // chỉ dùng cho khoảng giá / mức giảm giá
+        private BigDecimal to;   // null = không giới hạn trên
+        private long count;
+    }
+}
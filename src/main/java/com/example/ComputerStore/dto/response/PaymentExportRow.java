@@ -0,0 +1,49 @@
+package com.example.ComputerStore.dto.response;
+
+import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Một dòng export payment, được select trực tiếp bằng constructor expression
+ * (không load entity Payment / User / Product)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentExportRow {
+
+    public static final List<String> COLUMNS = List.of(
+            "id", "idPayment", "createdAt", "status", "typePayment", "quantity", "totalPrice",
+            "fullName", "phone", "address", "userId", "userEmail", "productId", "productName", "componentType");
+
+    private UUID id;
+    private String idPayment;
+    private LocalDateTime createdAt;
+    private PaymentStatus status;
+    private String typePayment;
+    private Integer quantity;
+    private BigDecimal totalPrice;
+    private String fullName;
+    private String phone;
+    private String address;
+    private UUID userId;
+    private String userEmail;
+    private UUID productId;
+    private String productName;
+    private ComponentType componentType;
+
+    // Giá trị theo thứ tự COLUMNS
+    public List<Object> values() {
+        return Arrays.asList(id, idPayment, createdAt, status, typePayment, quantity, totalPrice,
+                fullName, phone, address, userId, userEmail, productId, productName, componentType);
+    }
+}
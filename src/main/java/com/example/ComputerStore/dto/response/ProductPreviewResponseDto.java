@@ -0,0 +1,24 @@
+package com.example.ComputerStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPreviewResponseDto {
+
+    private UUID id;
+    private UUID productId;
+    private UUID userId;
+    private String fullName;
+    private Integer rating;
+    private String content;
+    private LocalDateTime createdAt;
+}
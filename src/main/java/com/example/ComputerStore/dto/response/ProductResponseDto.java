@@ -12,7 +12,7 @@ import java.util.UUID;
 import com.example.ComputerStore.enumeric.ComponentType;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductResponseDto {
@@ -42,7 +42,8 @@ public class ProductResponseDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
-    // Review statistics (sẽ tính sau)
+    // Review statistics (lấy từ tổng hợp rating trong bộ nhớ)
     private Double averageRating;
     private Integer totalReviews;
+    private List<Long> ratingHistogram; // Số review 1 -> 5 sao
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.example.ComputerStore.dto.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Bản chụp bất biến của một product: DTO đã build sẵn và JSON đã serialize sẵn (UTF-8).
+ * Khi trả về trong response, JSON được ghi thẳng ra output thay vì serialize lại DTO qua Jackson.
+ */
+@JsonSerialize(using = ProductSnapshot.RawJsonSerializer.class)
+public final class ProductSnapshot {
+
+    private final ProductResponseDto dto;
+    private final byte[] json;
+
+    // Dùng để phát hiện snapshot đã cũ so với entity vừa load
+    private final LocalDateTime updatedAt;
+    private final Integer stock;
+
+    public ProductSnapshot(ProductResponseDto dto, byte[] json) {
+        this.dto = dto;
+        this.json = json;
+        this.updatedAt = dto.getUpdatedAt();
+        this.stock = dto.getStock();
+    }
+
+    public UUID getId() {
+        return dto.getId();
+    }
+
+    public UUID getCategoryId() {
+        return dto.getCategoryId();
+    }
+
+    public BigDecimal getPrice() {
+        return dto.getPrice();
+    }
+
+    public BigDecimal getFinalPrice() {
+        return dto.getFinalPrice();
+    }
+
+    public Integer getDiscount() {
+        return dto.getDiscount();
+    }
+
+    /**
+     * Trả về bản sao: DTO gốc dùng chung giữa các request nên nơi gọi sửa bản sao cũng không ảnh hưởng snapshot
+     */
+    public ProductResponseDto getDto() {
+        return dto.toBuilder().build();
+    }
+
+    public int getJsonLength() {
+        return json.length;
+    }
+
+    // Tồn kho có thể bị cập nhật bằng UPDATE trực tiếp (không qua @PreUpdate) nên so sánh riêng
+    public boolean isStale(LocalDateTime currentUpdatedAt, Integer currentStock) {
+        return !Objects.equals(updatedAt, currentUpdatedAt) || !Objects.equals(stock, currentStock);
+    }
+
+    public static class RawJsonSerializer extends StdSerializer<ProductSnapshot> {
+
+        public RawJsonSerializer() {
+            super(ProductSnapshot.class);
+        }
+
+        @Override
+        public void serialize(ProductSnapshot snapshot, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeRawValue(new RawJson(snapshot.json));
+        }
+    }
+
+    /**
+     * Bọc mảng byte UTF-8 để UTF8JsonGenerator copy thẳng vào buffer, không qua String
+     */
+    private static final class RawJson implements SerializableString {
+
+        private final byte[] utf8;
+
+        private RawJson(byte[] utf8) {
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public String getValue() {
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return JsonStringEncoder.getInstance().quoteAsString(getValue());
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return utf8;
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return copy(asQuotedUTF8(), buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return copy(asQuotedChars(), buffer, offset);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            return copy(utf8, buffer, offset);
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            return copy(getValue().toCharArray(), buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            byte[] quoted = asQuotedUTF8();
+            out.write(quoted);
+            return quoted.length;
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(utf8);
+            return utf8.length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            return put(asQuotedUTF8(), buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            return put(utf8, buffer);
+        }
+
+        // Trả về -1 khi buffer không đủ chỗ, generator sẽ ghi qua asUnquotedUTF8()
+        private static int copy(byte[] source, byte[] buffer, int offset) {
+            if (source.length > buffer.length - offset) {
+                return -1;
+            }
+            System.arraycopy(source, 0, buffer, offset, source.length);
+            return source.length;
+        }
+
+        private static int copy(char[] source, char[] buffer, int offset) {
+            if (source.length > buffer.length - offset) {
+                return -1;
+            }
+            System.arraycopy(source, 0, buffer, offset, source.length);
+            return source.length;
+        }
+
+        private static int put(byte[] source, ByteBuffer buffer) {
+            if (source.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(source);
+            return source.length;
+        }
+    }
+}
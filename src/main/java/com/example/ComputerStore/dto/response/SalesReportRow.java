@@ -0,0 +1,35 @@
+package com.example.ComputerStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Một dòng báo cáo bán hàng theo ngày, lấy từ bảng tổng hợp payment_rollups
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportRow {
+
+    public static final List<String> COLUMNS = List.of(
+            "date", "status", "typePayment", "componentType", "revenue", "orders", "quantity");
+
+    private LocalDate date;
+    private String status;
+    private String typePayment;
+    private String componentType;
+    private BigDecimal revenue;
+    private long orders;
+    private long quantity;
+
+    // Giá trị theo thứ tự COLUMNS
+    public List<Object> values() {
+        return Arrays.asList(date, status, typePayment, componentType, revenue, orders, quantity);
+    }
+}
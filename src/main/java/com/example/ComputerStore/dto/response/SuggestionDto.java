@@ -0,0 +1,20 @@
+package com.example.ComputerStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// Một gợi ý autocomplete: tên product (kèm productId) hoặc từ khóa thông số
+public class SuggestionDto {
+
+    private String text;
+    private String type; // "product" hoặc "term"
+    private UUID productId; // null khi type = "term"
+}
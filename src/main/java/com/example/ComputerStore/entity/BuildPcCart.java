@@ -8,7 +8,10 @@ import java.util.UUID;
 import com.example.ComputerStore.enumeric.ComponentType;
 
 @Entity
-@Table(name = "build_pc_carts")
+@Table(name = "build_pc_carts", indexes = {
+        @Index(name = "idx_build_pc_carts_product_id", columnList = "product_id"),
+        @Index(name = "idx_build_pc_carts_updated_at", columnList = "updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,55 @@
+package com.example.ComputerStore.entity;
+
+import com.example.ComputerStore.enumeric.OrderTaskStatus;
+import com.example.ComputerStore.enumeric.OrderTaskType;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Việc xử lý đơn hàng chờ chạy nền (outbox): được ghi cùng transaction với thay đổi của đơn,
+ * worker trên mọi node nhận bằng SELECT ... FOR UPDATE SKIP LOCKED và xóa khi xử lý xong.
+ * available_at là thời điểm đến hạn (PENDING) hoặc hết lease (IN_PROGRESS).
+ * Việc lỗi được thử lại sau available_at, quá số lần cho phép thì chuyển sang FAILED để kiểm tra.
+ */
+@Entity
+@Table(name = "order_tasks",
+        indexes = @Index(name = "idx_order_tasks_status_available_at", columnList = "status, available_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderTask extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 30, nullable = false)
+    private OrderTaskType type;
+
+    @Column(name = "id_payment", nullable = false)
+    private String idPayment;
+
+    // Trạng thái đích, chỉ dùng cho CHANGE_STATUS / STATUS_MAIL
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_status", length = 20)
+    private PaymentStatus targetStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private OrderTaskStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
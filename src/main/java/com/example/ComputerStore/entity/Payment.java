@@ -1,6 +1,9 @@
 package com.example.ComputerStore.entity;
 
 import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.event.PaymentChangedEvent;
+import com.example.ComputerStore.event.PaymentEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,7 +11,11 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_created_at", columnList = "created_at"),
+        @Index(name = "idx_payments_id_payment", columnList = "id_payment")
+})
+@EntityListeners(PaymentEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -52,4 +59,11 @@ public class Payment extends BaseEntity {
     @ManyToOne
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
+
+    // Trạng thái đã được cộng vào bảng tổng hợp doanh thu, do PaymentEntityListener quản lý
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private PaymentChangedEvent.State rollupState;
 }
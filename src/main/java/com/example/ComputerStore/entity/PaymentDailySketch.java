@@ -0,0 +1,31 @@
+package com.example.ComputerStore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Sketch theo ngày của các payment không bị hủy: HyperLogLog số người mua phân biệt
+ * và sketch phân vị giá trị đơn hàng. Gộp nhiều ngày để ra số liệu cho cả kỳ.
+ */
+@Entity
+@Table(name = "payment_daily_sketches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentDailySketch {
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Lob
+    @Column(name = "buyers", nullable = false, columnDefinition = "BLOB")
+    private byte[] buyers;
+
+    @Lob
+    @Column(name = "order_values", nullable = false, columnDefinition = "BLOB")
+    private byte[] orderValues;
+}
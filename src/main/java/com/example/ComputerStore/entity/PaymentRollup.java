@@ -0,0 +1,32 @@
+package com.example.ComputerStore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Tổng hợp doanh thu / số đơn / số lượng của payments theo bucket thời gian (giờ, ngày, tháng),
+ * trạng thái, hình thức thanh toán và loại linh kiện. Được cộng / trừ dần khi payment được tạo
+ * hoặc đổi trạng thái, và build lại toàn bộ từ bảng payments theo lịch.
+ */
+@Entity
+@Table(name = "payment_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRollup {
+
+    @EmbeddedId
+    private PaymentRollupId id;
+
+    @Column(name = "revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "quantity", nullable = false)
+    private long quantity;
+}
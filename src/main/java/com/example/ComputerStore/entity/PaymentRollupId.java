@@ -0,0 +1,32 @@
+package com.example.ComputerStore.entity;
+
+import com.example.ComputerStore.enumeric.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentRollupId implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 10, nullable = false)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "type_payment", length = 20, nullable = false)
+    private String typePayment;
+
+    @Column(name = "component_type", length = 20, nullable = false)
+    private String componentType;
+}
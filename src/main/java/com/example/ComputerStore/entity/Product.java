@@ -2,19 +2,30 @@ package com.example.ComputerStore.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.*;
 import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.util.TextNormalizer;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_final_price", columnList = "final_price"),
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id")
+})
+// Chỉ UPDATE các cột thay đổi: sửa thông tin sản phẩm không ghi đè stock vừa bị trừ / trả bởi giữ hàng đồng thời
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Product extends BaseEntity {
 
+    // Giới hạn độ dài để search_key là VARCHAR (lưu inline) thay vì TEXT
+    public static final int SEARCH_KEY_MAX_LENGTH = 700;
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -31,9 +42,18 @@ public class Product extends BaseEntity {
     @Column(nullable = false, precision = 5, scale = 2, columnDefinition = "DECIMAL(5,2) DEFAULT 0")
     private BigDecimal discount = BigDecimal.ZERO;
 
+    // Giá sau giảm giá, lưu sẵn để có thể ORDER BY / lọc trong SQL
+    @Column(name = "final_price", precision = 10, scale = 2)
+    private BigDecimal finalPrice;
+
     @Column(columnDefinition = "TEXT", nullable = false)
     private String images;
 
+    // Tên + thông số đã bỏ dấu, chữ thường; dùng để tìm kiếm không phân biệt dấu thay vì quét cột TEXT.
+    // Không đánh index: LIKE '%keyword%' không dùng được index B-tree, tìm kiếm chính chạy trên ProductSearchIndex
+    @Column(name = "search_key", length = SEARCH_KEY_MAX_LENGTH)
+    private String searchKey;
+
     @Column(nullable = false)
     private Integer stock;
 
@@ -85,4 +105,32 @@ public class Product extends BaseEntity {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     private List<ProductPreview> productPreviews = new ArrayList<>();
 
+    @PrePersist
+    @PreUpdate
+    protected void computeDerivedFields() {
+        this.finalPrice = calculateFinalPrice(price, discount);
+        this.searchKey = buildSearchKey();
+    }
+
+    public String buildSearchKey() {
+        StringBuilder text = new StringBuilder(name != null ? name : "");
+        for (String spec : new String[]{cpu, main, ram, storage, gpu, power, caseComputer, coolers}) {
+            if (spec != null) {
+                text.append(' ').append(spec);
+            }
+        }
+        String key = TextNormalizer.fold(text.toString());
+        return key.length() > SEARCH_KEY_MAX_LENGTH ? key.substring(0, SEARCH_KEY_MAX_LENGTH) : key;
+    }
+
+    public static BigDecimal calculateFinalPrice(BigDecimal price, BigDecimal discount) {
+        if (price == null) {
+            return null;
+        }
+        if (discount == null || discount.compareTo(BigDecimal.ZERO) <= 0) {
+            return price;
+        }
+        BigDecimal discountAmount = price.multiply(discount).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        return price.subtract(discountAmount);
+    }
 }
@@ -6,7 +6,9 @@ import lombok.*;
 import java.util.UUID;
 
 @Entity
-@Table(name = "product_previews")
+@Table(name = "product_previews",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_previews_user_product",
+                columnNames = {"user_id", "product_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,45 @@
+package com.example.ComputerStore.entity;
+
+import com.example.ComputerStore.enumeric.ReservationSource;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lượng hàng đang được giữ cho một dòng giỏ hàng (user + product + nơi giữ).
+ * Số lượng giữ đã được trừ khỏi products.stock; dòng bị xóa khi hủy giữ, hết hạn (trả lại kho)
+ * hoặc khi checkout (hàng được bán).
+ */
+@Entity
+@Table(name = "stock_reservations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_reservations_line",
+                columnNames = {"user_id", "product_id", "source"}),
+        indexes = @Index(name = "idx_stock_reservations_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "product_id", nullable = false)
+    private UUID productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", length = 20, nullable = false)
+    private ReservationSource source;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,6 @@
+package com.example.ComputerStore.enumeric;
+
+// Thao tác trong một request batch giỏ hàng: thêm (cộng dồn), đặt lại số lượng, xóa
+public enum CartOperationType {
+    ADD, UPDATE, REMOVE
+}
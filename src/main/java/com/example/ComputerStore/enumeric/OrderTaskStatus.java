@@ -0,0 +1,5 @@
+package com.example.ComputerStore.enumeric;
+
+public enum OrderTaskStatus {
+    PENDING, IN_PROGRESS, FAILED
+}
@@ -0,0 +1,5 @@
+package com.example.ComputerStore.enumeric;
+
+public enum OrderTaskType {
+    ORDER_CONFIRMATION_MAIL, CHANGE_STATUS, STATUS_MAIL
+}
@@ -1,5 +1,14 @@
 package com.example.ComputerStore.enumeric;
 
 public enum PaymentStatus {
-    PENDING, COMPLETED, DELIVERED, CANCELLED
+    PENDING, COMPLETED, DELIVERED, CANCELLED;
+
+    // PENDING -> COMPLETED -> DELIVERED, hủy được khi chưa giao
+    public boolean canTransitionTo(PaymentStatus target) {
+        return switch (this) {
+            case PENDING -> target == COMPLETED || target == CANCELLED;
+            case COMPLETED -> target == DELIVERED || target == CANCELLED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
 }
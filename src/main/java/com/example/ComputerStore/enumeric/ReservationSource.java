@@ -0,0 +1,6 @@
+package com.example.ComputerStore.enumeric;
+
+// Nơi giữ hàng: giỏ hàng thường hoặc giỏ build PC
+public enum ReservationSource {
+    CART, BUILD_PC
+}
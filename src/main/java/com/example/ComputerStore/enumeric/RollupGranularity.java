@@ -0,0 +1,18 @@
+package com.example.ComputerStore.enumeric;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Độ chi tiết của bảng tổng hợp doanh thu (payment_rollups)
+public enum RollupGranularity {
+    HOUR, DAY, MONTH;
+
+    // Mốc đầu bucket chứa thời điểm t
+    public LocalDateTime bucketOf(LocalDateTime t) {
+        return switch (this) {
+            case HOUR -> t.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> t.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> t.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ComputerStore.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Phát ra khi giỏ hàng của user thay đổi (thêm / sửa / xóa dòng), để bỏ tóm tắt giỏ hàng đã cache
+ */
+@Getter
+@RequiredArgsConstructor
+public class CartChangedEvent {
+
+    private final UUID userId;
+}
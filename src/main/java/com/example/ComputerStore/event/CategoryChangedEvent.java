@@ -0,0 +1,16 @@
+package com.example.ComputerStore.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Phát ra khi tên category thay đổi, để bỏ các snapshot / cache product còn giữ tên cũ
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryChangedEvent {
+
+    private final UUID categoryId;
+}
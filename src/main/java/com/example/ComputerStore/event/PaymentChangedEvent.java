@@ -0,0 +1,42 @@
+package com.example.ComputerStore.event;
+
+import com.example.ComputerStore.entity.Payment;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Phát ra khi payment được tạo / đổi trạng thái / sửa / xóa, kèm trạng thái trước và sau
+ * để bảng tổng hợp doanh thu trừ giá trị cũ và cộng giá trị mới
+ */
+@Getter
+@RequiredArgsConstructor
+public class PaymentChangedEvent {
+
+    // null khi payment vừa được tạo
+    private final State previous;
+
+    // null khi payment bị xóa
+    private final State current;
+
+    /**
+     * Các thuộc tính của payment mà bảng tổng hợp / sketch phụ thuộc vào
+     */
+    public record State(LocalDateTime createdAt, UUID userId, String status, String typePayment,
+                        String componentType, BigDecimal totalPrice, int quantity) {
+
+        public static State of(Payment payment) {
+            return new State(
+                    payment.getCreatedAt(),
+                    payment.getUser().getId(),
+                    payment.getStatus().name(),
+                    payment.getTypePayment() == null ? "UNKNOWN" : payment.getTypePayment().toUpperCase(),
+                    payment.getProduct().getComponentType().name(),
+                    payment.getTotalPrice(),
+                    payment.getQuantity());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ComputerStore.event;
+
+import com.example.ComputerStore.entity.Payment;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener của Payment: ghi nhớ trạng thái lúc load và phát PaymentChangedEvent
+ * khi payment được insert / update / delete. Được Hibernate tạo qua Spring nên có thể inject bean.
+ */
+@RequiredArgsConstructor
+public class PaymentEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void onLoad(Payment payment) {
+        payment.setRollupState(PaymentChangedEvent.State.of(payment));
+    }
+
+    @PostPersist
+    public void onPersist(Payment payment) {
+        PaymentChangedEvent.State current = PaymentChangedEvent.State.of(payment);
+        payment.setRollupState(current);
+        eventPublisher.publishEvent(new PaymentChangedEvent(null, current));
+    }
+
+    @PostUpdate
+    public void onUpdate(Payment payment) {
+        PaymentChangedEvent.State previous = payment.getRollupState();
+        PaymentChangedEvent.State current = PaymentChangedEvent.State.of(payment);
+        // previous == null: không biết giá trị cũ, để lần build lại định kỳ sửa thay vì cộng trùng
+        if (previous != null && !previous.equals(current)) {
+            payment.setRollupState(current);
+            eventPublisher.publishEvent(new PaymentChangedEvent(previous, current));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Payment payment) {
+        PaymentChangedEvent.State previous = payment.getRollupState() != null
+                ? payment.getRollupState()
+                : PaymentChangedEvent.State.of(payment);
+        eventPublisher.publishEvent(new PaymentChangedEvent(previous, null));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ComputerStore.event;
+
+import com.example.ComputerStore.entity.Product;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Phát ra khi product được tạo / cập nhật / xóa, để các bộ nhớ đệm và index trong process cập nhật theo
+ */
+@Getter
+@RequiredArgsConstructor
+public class ProductChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, STOCK_CHANGED, RATING_CHANGED
+    }
+
+    private final Type type;
+    private final UUID productId;
+
+    // null khi type = DELETED, STOCK_CHANGED hoặc RATING_CHANGED
+    private final Product product;
+
+    // Tồn kho sau thay đổi, chỉ có khi type = STOCK_CHANGED
+    private final Integer stock;
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), product, null);
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), product, null);
+    }
+
+    public static ProductChangedEvent deleted(UUID productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null, null);
+    }
+
+    // Chỉ tồn kho thay đổi (giữ hàng / checkout), nội dung product không đổi
+    public static ProductChangedEvent stockChanged(UUID productId, int stock) {
+        return new ProductChangedEvent(Type.STOCK_CHANGED, productId, null, stock);
+    }
+
+    // Có review được thêm / xóa, tổng hợp rating của product thay đổi
+    public static ProductChangedEvent ratingChanged(UUID productId) {
+        return new ProductChangedEvent(Type.RATING_CHANGED, productId, null, null);
+    }
+}
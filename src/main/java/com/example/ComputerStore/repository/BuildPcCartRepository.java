@@ -2,11 +2,13 @@ package com.example.ComputerStore.repository;
 
 import com.example.ComputerStore.entity.BuildPcCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,6 +42,17 @@ public interface BuildPcCartRepository extends JpaRepository<BuildPcCart, UUID>
     // xoa tat ca build pc cart cua user
     void deleteByUserId(UUID userId);
 
+    // xoa mot lo build pc cart khong duoc dung toi tu truoc cutoff (DELETE ... LIMIT, moi lo chi khoa it dong)
+    @Modifying
+    @Query(value = "DELETE FROM build_pc_carts WHERE updated_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteIdleBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // tinh lai thanh tien cac dong build pc cart cua product theo don gia moi (chi cac dong dang sai gia)
+    @Modifying
+    @Query("UPDATE BuildPcCart b SET b.totalPrice = CAST(:unitPrice AS BigDecimal) * b.quantity " +
+            "WHERE b.product.id = :productId AND b.totalPrice <> CAST(:unitPrice AS BigDecimal) * b.quantity")
+    int repriceByProductId(@Param("productId") UUID productId, @Param("unitPrice") BigDecimal unitPrice);
+
     // tim build pc cart theo product
     List<BuildPcCart> findByProductId(UUID productId);
 
@@ -1,12 +1,17 @@
 package com.example.ComputerStore.repository;
 
 import com.example.ComputerStore.entity.Cart;
+import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.enumeric.ReservationSource;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +22,59 @@ public interface CartRepository extends JpaRepository<Cart, UUID> {
     // Tìm cart items theo user
     List<Cart> findByUserId(UUID userId);
     
+    // Xóa một lô dòng giỏ không được đụng tới từ trước cutoff (DELETE ... LIMIT, mỗi lô chỉ khóa ít dòng)
+    @Modifying
+    @Query(value = "DELETE FROM carts WHERE updated_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteIdleBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+    
+    // Cart items của user kèm product + category trong một query (dùng cho batch)
+    @Query("SELECT c FROM Cart c JOIN FETCH c.product p JOIN FETCH p.category WHERE c.user.id = :userId")
+    List<Cart> findByUserIdWithProduct(@Param("userId") UUID userId);
+    
+    // Tóm tắt giỏ hàng trong một query: số dòng, tổng số lượng, tổng giá gốc, tổng sau giảm giá,
+    // số dòng PC / phụ kiện / còn hàng / đang giảm giá, tên sản phẩm đắt nhất và rẻ nhất.
+    // Còn hàng tính như validateCartStock: stock + phần user đang giữ cho dòng giỏ đủ số lượng của dòng
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.quantity), 0), " +
+           "COALESCE(SUM(p.price * c.quantity), 0), COALESCE(SUM(c.totalPrice), 0), " +
+           "COALESCE(SUM(CASE WHEN p.componentType = :pcType THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.componentType IN :accessoryTypes THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.stock + COALESCE(r.quantity, 0) >= c.quantity THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.discount > 0 THEN 1 ELSE 0 END), 0), " +
+           "(SELECT p2.name FROM Cart c2 JOIN c2.product p2 WHERE c2.user.id = :userId " +
+           " ORDER BY p2.price DESC, p2.name LIMIT 1), " +
+           "(SELECT p3.name FROM Cart c3 JOIN c3.product p3 WHERE c3.user.id = :userId " +
+           " ORDER BY p3.price, p3.name LIMIT 1) " +
+           "FROM Cart c JOIN c.product p " +
+           "LEFT JOIN StockReservation r ON r.userId = c.user.id AND r.productId = p.id AND r.source = :holdSource " +
+           "WHERE c.user.id = :userId")
+    List<Object[]> getCartSummary(@Param("userId") UUID userId,
+                                  @Param("pcType") ComponentType pcType,
+                                  @Param("accessoryTypes") Collection<ComponentType> accessoryTypes,
+                                  @Param("holdSource") ReservationSource holdSource);
+    
+    // Ghi số lượng từ cart write-behind (thành tiền theo giá hiện tại của product); bỏ qua nếu dòng đã được ghi
+    // sau thời điểm thay đổi (không để journal cũ / flush trễ ghi đè thay đổi mới hơn), trả về số dòng đã ghi
+    @Modifying
+    @Query("UPDATE Cart c SET c.quantity = :quantity, " +
+           "c.totalPrice = (SELECT p.finalPrice FROM Product p WHERE p.id = c.product.id) * :quantity, " +
+           "c.updatedAt = :mutatedAt " +
+           "WHERE c.id = :id AND c.updatedAt < :mutatedAt")
+    int applyDeferredQuantity(@Param("id") UUID id,
+                              @Param("quantity") int quantity,
+                              @Param("mutatedAt") LocalDateTime mutatedAt);
+    
+    // User có dòng giỏ của product đang sai giá so với đơn giá hiện tại
+    @Query("SELECT DISTINCT c.user.id FROM Cart c " +
+           "WHERE c.product.id = :productId AND c.totalPrice <> CAST(:unitPrice AS BigDecimal) * c.quantity")
+    List<UUID> findUserIdsWithStalePrice(@Param("productId") UUID productId,
+                                         @Param("unitPrice") BigDecimal unitPrice);
+    
+    // Tính lại thành tiền mọi dòng giỏ của product theo đơn giá mới, chỉ chạm các dòng đang sai giá
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalPrice = CAST(:unitPrice AS BigDecimal) * c.quantity " +
+           "WHERE c.product.id = :productId AND c.totalPrice <> CAST(:unitPrice AS BigDecimal) * c.quantity")
+    int repriceByProductId(@Param("productId") UUID productId, @Param("unitPrice") BigDecimal unitPrice);
+    
     // Tìm cart item theo user và product
     Optional<Cart> findByUserIdAndProductId(UUID userId, UUID productId);
     
@@ -0,0 +1,31 @@
+package com.example.ComputerStore.repository;
+
+import com.example.ComputerStore.entity.OrderTask;
+import com.example.ComputerStore.enumeric.OrderTaskStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OrderTaskRepository extends JpaRepository<OrderTask, UUID> {
+
+    // Khóa các việc đã đến hạn (PENDING) hoặc đã hết lease (IN_PROGRESS của worker đã chết),
+    // bỏ qua dòng đang bị worker khác khóa để nhiều node cùng rút hàng đợi song song
+    @Query(value = "SELECT * FROM order_tasks WHERE status IN ('PENDING', 'IN_PROGRESS') AND available_at <= :now " +
+                   "ORDER BY available_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderTask> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Xóa việc đã xong, chỉ khi lease vẫn là lease của worker đã nhận việc
+    @Modifying
+    @Query("DELETE FROM OrderTask t WHERE t.id = :id AND t.status = com.example.ComputerStore.enumeric.OrderTaskStatus.IN_PROGRESS " +
+           "AND t.availableAt = :leaseUntil")
+    int deleteClaimed(@Param("id") UUID id, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByStatus(OrderTaskStatus status);
+}
@@ -0,0 +1,24 @@
+package com.example.ComputerStore.repository;
+
+import com.example.ComputerStore.entity.PaymentDailySketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentDailySketchRepository extends JpaRepository<PaymentDailySketch, LocalDate> {
+
+    // Khóa dòng của ngày để gộp sketch (nhiều node cùng flush)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PaymentDailySketch s WHERE s.day = :day")
+    Optional<PaymentDailySketch> findByDayForUpdate(@Param("day") LocalDate day);
+
+    List<PaymentDailySketch> findByDayBetweenOrderByDay(LocalDate from, LocalDate to);
+}
@@ -1,12 +1,18 @@
 package com.example.ComputerStore.repository;
 
+import com.example.ComputerStore.dto.response.PaymentExportRow;
 import com.example.ComputerStore.entity.Payment;
 import com.example.ComputerStore.enumeric.PaymentStatus;
 import com.example.ComputerStore.enumeric.PaymentType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -15,6 +21,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
@@ -26,6 +33,14 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
     // Tim payment theo idPayment
     Optional<Payment> findByIdPayment(String idPayment);
 
+    // Cac dong cua mot don hang (cung idPayment)
+    List<Payment> findAllByIdPayment(String idPayment);
+
+    // Khoa cac dong cua don hang khi doi trang thai, hai lan doi trang thai dong thoi chay tuan tu
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.idPayment = :idPayment")
+    List<Payment> findAllByIdPaymentForUpdate(@Param("idPayment") String idPayment);
+
     // Tim payments theo status
     List<Payment> findByStatus(PaymentStatus status);
 
@@ -44,7 +59,7 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
 
     // Tinh doanh thu theo khoang thoi gian
     @Query("SELECT COALESCE(SUM(p.totalPrice), 0) FROM Payment p " +
-            "WHERE p.status = 'COMPLETED'"
+            "WHERE p.status = 'COMPLETED' "
             + "AND p.createdAt BETWEEN :startDate AND :endDate")
     BigDecimal getRevenueByDateRange(@Param("startDate") LocalDateTime startDate,
                                      @Param("endDate") LocalDateTime endDate);
@@ -85,6 +100,12 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
     // Get recent orders (top 5)
     List<Payment> findTop5ByOrderByCreatedAtDesc();
     
+    // Recent orders cho dashboard
+    List<Payment> findTop10ByOrderByCreatedAtDesc();
+    
+    List<Payment> findTop20ByOrderByCreatedAtDesc();
+
+    
     // Get order stats by date range
     @Query("SELECT DATE(p.createdAt) as date, COUNT(p) as count FROM Payment p " +
            "WHERE p.createdAt BETWEEN :startDate AND :endDate " +
@@ -92,6 +113,25 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
     List<Object[]> getOrderStatsByDateRange(@Param("startDate") LocalDateTime startDate,
                                            @Param("endDate") LocalDateTime endDate);
     
+    // Stream payments trong khoảng [from, to) để export: select thẳng các cột cần thiết (không load entity),
+    // fetch size = Integer.MIN_VALUE để MySQL driver stream từng dòng thay vì đọc cả result set vào bộ nhớ
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.ComputerStore.dto.response.PaymentExportRow(" +
+           "p.id, p.idPayment, p.createdAt, p.status, p.typePayment, p.quantity, p.totalPrice, " +
+           "p.fullName, p.phone, p.address, u.id, u.email, pr.id, pr.name, pr.componentType) " +
+           "FROM Payment p JOIN p.user u JOIN p.product pr " +
+           "WHERE p.createdAt >= :from AND p.createdAt < :to " +
+           "ORDER BY p.createdAt, p.id")
+    Stream<PaymentExportRow> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    // Stream (createdAt, userId, totalPrice) của payments không bị hủy để build lại sketch theo ngày
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT p.createdAt, p.user.id, p.totalPrice FROM Payment p WHERE p.status <> :excluded")
+    Stream<Object[]> streamForSketches(@Param("excluded") PaymentStatus excluded);
+    
     // Get order status stats for pie chart
     @Query("SELECT p.status, COUNT(p) FROM Payment p GROUP BY p.status")
     List<Object[]> getOrderStatusStats();
@@ -0,0 +1,65 @@
+package com.example.ComputerStore.repository;
+
+import com.example.ComputerStore.entity.PaymentRollup;
+import com.example.ComputerStore.entity.PaymentRollupId;
+import com.example.ComputerStore.enumeric.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollup, PaymentRollupId> {
+
+    // Cộng delta vào một bucket, tạo dòng mới nếu chưa có (atomic)
+    @Modifying
+    @Query(value = "INSERT INTO payment_rollups " +
+           "(granularity, bucket_start, status, type_payment, component_type, revenue, order_count, quantity) " +
+           "VALUES (:granularity, :bucketStart, :status, :typePayment, :componentType, :revenue, :orders, :quantity) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "revenue = revenue + VALUES(revenue), " +
+           "order_count = order_count + VALUES(order_count), " +
+           "quantity = quantity + VALUES(quantity)",
+           nativeQuery = true)
+    int applyDelta(@Param("granularity") String granularity,
+                   @Param("bucketStart") LocalDateTime bucketStart,
+                   @Param("status") String status,
+                   @Param("typePayment") String typePayment,
+                   @Param("componentType") String componentType,
+                   @Param("revenue") BigDecimal revenue,
+                   @Param("orders") long orders,
+                   @Param("quantity") long quantity);
+
+    // Các dòng tổng hợp trong khoảng [from, to) của một granularity
+    @Query("SELECT r FROM PaymentRollup r " +
+           "WHERE r.id.granularity = :granularity " +
+           "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to " +
+           "ORDER BY r.id.bucketStart")
+    List<PaymentRollup> findBuckets(@Param("granularity") RollupGranularity granularity,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to);
+
+    // Build lại một granularity từ bảng payments; bucketFormat là format DATE_FORMAT của mốc đầu bucket.
+    // Dòng đã có (delta của node khác cộng vào sau khi xóa) thì cộng dồn như applyDelta thay vì lỗi trùng khóa
+    @Modifying
+    @Query(value = "INSERT INTO payment_rollups " +
+           "(granularity, bucket_start, status, type_payment, component_type, revenue, order_count, quantity) " +
+           "SELECT * FROM (" +
+           "SELECT :granularity AS g, DATE_FORMAT(p.created_at, :bucketFormat) AS bucket, p.status AS s, " +
+           "UPPER(p.type_payment) AS tp, pr.component_type AS ct, SUM(p.total_price) AS rev, " +
+           "COUNT(*) AS cnt, SUM(p.quantity) AS qty " +
+           "FROM payments p JOIN products pr ON pr.id = p.product_id " +
+           "GROUP BY bucket, p.status, UPPER(p.type_payment), pr.component_type) AS rebuilt " +
+           "ON DUPLICATE KEY UPDATE " +
+           "revenue = revenue + rebuilt.rev, " +
+           "order_count = order_count + rebuilt.cnt, " +
+           "quantity = quantity + rebuilt.qty",
+           nativeQuery = true)
+    int rebuildFromPayments(@Param("granularity") String granularity,
+                            @Param("bucketFormat") String bucketFormat);
+}
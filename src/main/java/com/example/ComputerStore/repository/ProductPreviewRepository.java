@@ -50,6 +50,15 @@ public interface ProductPreviewRepository extends JpaRepository<ProductPreview,
     @Query("SELECT COUNT(p) FROM ProductPreview p WHERE p.product.id = :productId AND p.rating = :rating")
     long countByProductIdAndRating(@Param("productId") UUID productId, @Param("rating") Integer rating);
 
+    // Số review theo từng mức sao của mọi product (dùng để rebuild bảng product_rating_stats)
+    @Query("SELECT p.product.id, p.rating, COUNT(p) FROM ProductPreview p GROUP BY p.product.id, p.rating")
+    List<Object[]> countRatingsGroupedByProduct();
+
+    // Số review theo từng mức sao của một product (cùng dạng dòng với countRatingsGroupedByProduct)
+    @Query("SELECT p.product.id, p.rating, COUNT(p) FROM ProductPreview p WHERE p.product.id = :productId " +
+            "GROUP BY p.product.id, p.rating")
+    List<Object[]> countRatingsByProductId(@Param("productId") UUID productId);
+
     // Top rated products
     @Query("SELECT p.product, AVG(p.rating) as avgRating FROM ProductPreview p " +
             "GROUP BY p.product ORDER BY avgRating DESC")
@@ -0,0 +1,43 @@
+package com.example.ComputerStore.repository;
+
+import com.example.ComputerStore.entity.ProductRatingStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, UUID> {
+
+    // Cộng (delta = 1) hoặc trừ (delta = -1) một review vào tổng hợp, tạo dòng mới nếu chưa có (atomic)
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats " +
+           "(product_id, rating_count, rating_sum, star1, star2, star3, star4, star5) " +
+           "VALUES (:productId, :delta, :delta * :rating, " +
+           "CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+           "CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+           "CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+           "CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+           "CASE WHEN :rating = 5 THEN :delta ELSE 0 END) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "rating_count = rating_count + VALUES(rating_count), " +
+           "rating_sum = rating_sum + VALUES(rating_sum), " +
+           "star1 = star1 + VALUES(star1), " +
+           "star2 = star2 + VALUES(star2), " +
+           "star3 = star3 + VALUES(star3), " +
+           "star4 = star4 + VALUES(star4), " +
+           "star5 = star5 + VALUES(star5)",
+           nativeQuery = true)
+    int applyRating(@Param("productId") UUID productId, @Param("rating") int rating, @Param("delta") int delta);
+
+    // Khóa dòng tổng hợp của product (khóa cả khoảng trống nếu chưa có dòng) để applyRating đồng thời phải chờ
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductRatingStats s WHERE s.productId = :productId")
+    Optional<ProductRatingStats> findForUpdate(@Param("productId") UUID productId);
+}
@@ -6,12 +6,17 @@ import com.example.ComputerStore.enumeric.ComponentType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -20,6 +25,15 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
     List<Product> findByCategoryId(UUID categoryId);
     Page<Product> findByCategoryId(UUID categoryId, Pageable pageable);
 
+    // Top N products moi nhat cua tung category trong 1 query (window function, MySQL 8+)
+    @Query(value = "SELECT ranked.* FROM (" +
+           "SELECT p.*, ROW_NUMBER() OVER (PARTITION BY p.category_id ORDER BY p.created_at DESC, p.id DESC) AS rn " +
+           "FROM products p) ranked " +
+           "WHERE ranked.rn <= :limitPerCategory " +
+           "ORDER BY ranked.category_id, ranked.rn",
+           nativeQuery = true)
+    List<Product> findTopProductsPerCategory(@Param("limitPerCategory") int limitPerCategory);
+
     // Tim products theo name
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:name%")
     List<Product> findByNameContaining(@Param("name") String name);
@@ -50,8 +64,8 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
     @Query("SELECT p FROM Product p WHERE " +
             "(:name IS NULL OR p.name LIKE %:name%) AND " +
             "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
+            "(:minPrice IS NULL OR p.finalPrice >= :minPrice) AND " +
+            "(:maxPrice IS NULL OR p.finalPrice <= :maxPrice) AND " +
             "(:componentType IS NULL OR p.componentType = :componentType)")
     Page<Product> findWithFilters(@Param("name") String name,
                                   @Param("categoryId") UUID categoryId,
@@ -95,10 +109,16 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
     @Query("SELECT c.name, COUNT(p) FROM Product p JOIN p.category c GROUP BY c.name")
     List<Object[]> getCategoryStats();
     
-    // Search products by multiple criteria (for advanced search)
+    // Số product theo category, gồm cả category chưa có product
+    @Query("SELECT c.name, COUNT(p) FROM Category c LEFT JOIN c.products p GROUP BY c.id, c.name")
+    List<Object[]> countProductsGroupedByCategory();
+    
+    // Products tạo từ thời điểm (mới nhất trước)
+    List<Product> findByCreatedAtAfterOrderByCreatedAtDesc(LocalDateTime createdAt);
+    
+    // Search products by multiple criteria (for advanced search), searchText phải được fold bằng TextNormalizer
     @Query("SELECT p FROM Product p WHERE " +
-           "(:searchText IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchText, '%')) OR " +
-           "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchText, '%'))) AND " +
+           "(:searchText IS NULL OR p.searchKey LIKE CONCAT('%', :searchText, '%')) AND " +
            "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
            "(:componentType IS NULL OR p.componentType = :componentType)")
     Page<Product> searchProducts(@Param("searchText") String searchText,
@@ -126,38 +146,62 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
      */
     List<Product> findAllByOrderByCreatedAtDesc();
     
+    /**
+     * Products chưa có search_key (tạo trước khi có cột này)
+     */
+    List<Product> findBySearchKeyIsNull();
+    
+    /**
+     * Keyset pagination: trang đầu tiên của catalog theo (createdAt, id) giảm dần
+     */
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogFirstPage(Pageable pageable);
+    
+    /**
+     * Keyset pagination: các product đứng sau cursor (createdAt, id), dùng index (created_at, id) thay vì OFFSET
+     */
+    @Query("SELECT p FROM Product p WHERE p.createdAt < :createdAt " +
+           "OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") UUID id,
+                                       Pageable pageable);
+    
     /**
      * Search products with filters (equivalent to NodeJS search functionality)
+     * keyword phải được chuẩn hóa bằng TextNormalizer.fold để khớp với search_key
      */
     @Query("SELECT p FROM Product p WHERE " +
-           "(:keyword IS NULL OR :keyword = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-           "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
-           "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "(:keyword IS NULL OR :keyword = '' OR p.searchKey LIKE CONCAT('%', :keyword, '%')) " +
+           "AND (:minPrice IS NULL OR p.finalPrice >= :minPrice) " +
+           "AND (:maxPrice IS NULL OR p.finalPrice <= :maxPrice) " +
            "AND (:productIds IS NULL OR p.id IN :productIds)")
-    List<Product> searchWithFilters(
+    Page<Product> searchWithFilters(
             @Param("keyword") String keyword,
             @Param("minPrice") BigDecimal minPrice,
             @Param("maxPrice") BigDecimal maxPrice,
-            @Param("productIds") List<UUID> productIds
+            @Param("productIds") List<UUID> productIds,
+            Pageable pageable
     );
     
     /**
-     * Search products by category with all filters
+     * Search products by category with all filters (keyword đã chuẩn hóa bằng TextNormalizer.fold)
      */
     @Query("SELECT p FROM Product p WHERE " +
            "(:categoryId IS NULL OR p.category.id = :categoryId) " +
            "AND (:componentType IS NULL OR p.componentType = :componentType) " +
-           "AND (:keyword IS NULL OR :keyword = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-           "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
-           "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "AND (:keyword IS NULL OR :keyword = '' OR p.searchKey LIKE CONCAT('%', :keyword, '%')) " +
+           "AND (:minPrice IS NULL OR p.finalPrice >= :minPrice) " +
+           "AND (:maxPrice IS NULL OR p.finalPrice <= :maxPrice) " +
            "AND (:productIds IS NULL OR p.id IN :productIds)")
-    List<Product> searchByCategoryWithFilters(
+    Page<Product> searchByCategoryWithFilters(
             @Param("categoryId") UUID categoryId,
             @Param("componentType") ComponentType componentType,
             @Param("keyword") String keyword,
             @Param("minPrice") BigDecimal minPrice,
             @Param("maxPrice") BigDecimal maxPrice,
-            @Param("productIds") List<UUID> productIds
+            @Param("productIds") List<UUID> productIds,
+            Pageable pageable
     );
     
     /**
@@ -165,4 +209,30 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
      */
     @Query("SELECT p FROM Product p WHERE p.discount > :threshold ORDER BY p.discount DESC")
     List<Product> findHotSaleProductsByDiscount(@Param("threshold") Integer threshold);
+    
+    /**
+     * Tính final_price cho các product cũ chưa có giá trị (chạy lúc khởi động)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.finalPrice = p.price - p.price * p.discount / 100 WHERE p.finalPrice IS NULL")
+    int backfillFinalPrice();
+
+    // Load nhiều product kèm category trong một query
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllByIdWithCategory(@Param("ids") Collection<UUID> ids);
+
+    // Trừ tồn kho nếu còn đủ (atomic, không oversell); trả về 0 nếu không đủ hàng.
+    // Flush trước và clear sau để Product đã load trong cùng transaction không giữ stock cũ
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity WHERE p.id = :productId AND p.stock >= :quantity")
+    int decrementStock(@Param("productId") UUID productId, @Param("quantity") int quantity);
+
+    // Trả hàng về kho (hủy giữ / hết hạn giữ)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity WHERE p.id = :productId")
+    int incrementStock(@Param("productId") UUID productId, @Param("quantity") int quantity);
+
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :productId")
+    Optional<Integer> findStockById(@Param("productId") UUID productId);
 }
@@ -0,0 +1,51 @@
+package com.example.ComputerStore.repository;
+
+import com.example.ComputerStore.entity.StockReservation;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, UUID> {
+
+    // Khóa dòng giữ hàng của một dòng giỏ (chỉ chặn các thao tác trên cùng user + product + nơi giữ)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r " +
+           "WHERE r.userId = :userId AND r.productId = :productId AND r.source = :source")
+    Optional<StockReservation> findLineForUpdate(@Param("userId") UUID userId,
+                                                 @Param("productId") UUID productId,
+                                                 @Param("source") ReservationSource source);
+
+    // Khóa một lần mọi dòng giữ hàng của user cho các product trong batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r " +
+           "WHERE r.userId = :userId AND r.source = :source AND r.productId IN :productIds")
+    List<StockReservation> findLinesForUpdate(@Param("userId") UUID userId,
+                                              @Param("source") ReservationSource source,
+                                              @Param("productIds") Collection<UUID> productIds);
+
+    Optional<StockReservation> findByUserIdAndProductIdAndSource(UUID userId, UUID productId, ReservationSource source);
+
+    List<StockReservation> findByUserIdAndSource(UUID userId, ReservationSource source);
+
+    // Các dòng đã hết hạn, cũ nhất trước
+    @Query("SELECT r FROM StockReservation r WHERE r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Xóa dòng nếu vẫn còn hết hạn (chưa bị gia hạn / hủy / checkout trong lúc chờ), trả về số dòng đã xóa
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id = :id AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("id") UUID id, @Param("now") LocalDateTime now);
+}
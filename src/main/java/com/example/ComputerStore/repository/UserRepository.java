@@ -2,12 +2,15 @@ package com.example.ComputerStore.repository;
 
 import com.example.ComputerStore.entity.User;
 import com.example.ComputerStore.enumeric.TypeLogin;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +20,11 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     // Tim user theo email
     Optional<User> findByEmail(String email);
 
+    // Khoa dong user (chi lay id, khong load quan he) de cac lan checkout cua cung user chay tuan tu
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.id FROM User u WHERE u.id = :id")
+    Optional<UUID> lockById(@Param("id") UUID id);
+
     // check email ton tai
     boolean existsByEmail(String email);
 
@@ -63,6 +71,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     // Get latest users
     List<User> findTop10ByOrderByCreatedAtDesc();
     
+    // Count users theo role ("1" = admin, "0" = user)
+    long countByIsAdmin(String isAdmin);
+    
+    // Count users đăng ký từ thời điểm
+    long countByCreatedAtGreaterThanEqual(LocalDateTime createdAt);
+    
     // Count Google users
     @Query("SELECT COUNT(u) FROM User u WHERE u.typeLogin = 'google'")
     long countGoogleUsers();
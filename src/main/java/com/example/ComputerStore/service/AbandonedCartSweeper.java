@@ -0,0 +1,136 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.repository.BuildPcCartRepository;
+import com.example.ComputerStore.repository.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Dọn các dòng carts / build_pc_carts bị bỏ quên (không được sửa quá thời gian grace cấu hình riêng cho từng bảng).
+ * Xóa theo lô bằng DELETE ... LIMIT, mỗi lô một transaction ngắn và nghỉ giữa các lô để không giữ khóa lâu
+ * hay dồn tải lên DB; số lô mỗi lần chạy có giới hạn, phần còn lại để lần chạy sau.
+ * Grace phải lớn hơn app.stock.hold-ttl-ms: khi đó hàng giữ của dòng bị xóa đã hết hạn và được trả kho từ trước.
+ */
+@Service
+@Slf4j
+public class AbandonedCartSweeper {
+
+    private final CartRepository cartRepository;
+    private final BuildPcCartRepository buildPcCartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long cartIdleDays;
+    private final long buildPcCartIdleDays;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int maxBatches;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong cartsDeleted = new AtomicLong();
+    private final AtomicLong buildPcCartsDeleted = new AtomicLong();
+    private volatile LastRun lastRun;
+
+    public AbandonedCartSweeper(CartRepository cartRepository,
+                                BuildPcCartRepository buildPcCartRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cart.sweep.cart-idle-days:30}") long cartIdleDays,
+                                @Value("${app.cart.sweep.build-pc-idle-days:14}") long buildPcCartIdleDays,
+                                @Value("${app.cart.sweep.batch-size:1000}") int batchSize,
+                                @Value("${app.cart.sweep.pause-ms:200}") long pauseMillis,
+                                @Value("${app.cart.sweep.max-batches:500}") int maxBatches) {
+        this.cartRepository = cartRepository;
+        this.buildPcCartRepository = buildPcCartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cartIdleDays = cartIdleDays;
+        this.buildPcCartIdleDays = buildPcCartIdleDays;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.maxBatches = maxBatches;
+    }
+
+    /**
+     * Chạy một lượt dọn; bỏ qua nếu lượt trước vẫn đang chạy
+     */
+    @Scheduled(cron = "${app.cart.sweep.cron:0 45 3 * * *}")
+    public void sweep() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Abandoned cart sweep is already running, skipping");
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDateTime now = LocalDateTime.now();
+            SweepResult carts = sweepTable(now.minusDays(cartIdleDays), cartRepository::deleteIdleBatch);
+            SweepResult buildPcCarts = sweepTable(now.minusDays(buildPcCartIdleDays), buildPcCartRepository::deleteIdleBatch);
+
+            runs.incrementAndGet();
+            cartsDeleted.addAndGet(carts.deleted());
+            buildPcCartsDeleted.addAndGet(buildPcCarts.deleted());
+            lastRun = new LastRun(now, System.currentTimeMillis() - start, carts, buildPcCarts);
+            log.info("Abandoned cart sweep: {} carts in {} batches, {} build pc carts in {} batches, {} ms{}",
+                    carts.deleted(), carts.batches(), buildPcCarts.deleted(), buildPcCarts.batches(), lastRun.durationMillis(),
+                    carts.complete() && buildPcCarts.complete() ? "" : " (batch limit reached, rest left for next run)");
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", "abandoned-cart-sweeper");
+        stats.put("cartIdleDays", cartIdleDays);
+        stats.put("buildPcCartIdleDays", buildPcCartIdleDays);
+        stats.put("runs", runs.get());
+        stats.put("cartsDeleted", cartsDeleted.get());
+        stats.put("buildPcCartsDeleted", buildPcCartsDeleted.get());
+        LastRun last = lastRun;
+        if (last != null) {
+            stats.put("lastRunAt", last.startedAt().toString());
+            stats.put("lastRunMillis", last.durationMillis());
+            stats.put("lastCartsDeleted", last.carts().deleted());
+            stats.put("lastBuildPcCartsDeleted", last.buildPcCarts().deleted());
+            stats.put("lastRunComplete", last.carts().complete() && last.buildPcCarts().complete());
+        }
+        return stats;
+    }
+
+    // Helper methods
+    // Xóa từng lô cho tới khi lô cuối không đầy hoặc hết số lô cho phép
+    private SweepResult sweepTable(LocalDateTime cutoff, BiFunction<LocalDateTime, Integer, Integer> deleteBatch) {
+        long deleted = 0;
+        int batches = 0;
+        while (batches < maxBatches) {
+            Integer count = transactionTemplate.execute(status -> deleteBatch.apply(cutoff, batchSize));
+            int removed = count != null ? count : 0;
+            batches++;
+            deleted += removed;
+            if (removed < batchSize) {
+                return new SweepResult(deleted, batches, true);
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return new SweepResult(deleted, batches, false);
+    }
+
+    private record SweepResult(long deleted, int batches, boolean complete) {
+    }
+
+    private record LastRun(LocalDateTime startedAt, long durationMillis, SweepResult carts, SweepResult buildPcCarts) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.event.CartChangedEvent;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.BuildPcCartRepository;
+import com.example.ComputerStore.repository.CartRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tính lại totalPrice của các dòng carts / build_pc_carts khi giá hoặc giảm giá của product thay đổi.
+ * Chạy bất đồng bộ sau commit và được debounce theo product: nhiều lần sửa liên tiếp trong cửa sổ debounce
+ * chỉ gây một lần tính lại, đọc giá mới nhất lúc chạy. Mỗi bảng được cập nhật bằng một câu UPDATE theo
+ * product_id (có index), chỉ chạm các dòng đang sai giá.
+ */
+@Service
+@Slf4j
+public class CartRepricingService {
+
+    private final ProductRepository productRepository;
+    private final CartRepository cartRepository;
+    private final BuildPcCartRepository buildPcCartRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long debounceMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // Product đang chờ tính lại (đã lên lịch, chưa chạy)
+    private final Set<UUID> scheduled = ConcurrentHashMap.newKeySet();
+
+    public CartRepricingService(ProductRepository productRepository,
+                                CartRepository cartRepository,
+                                BuildPcCartRepository buildPcCartRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cart.reprice-debounce-ms:2000}") long debounceMillis) {
+        this.productRepository = productRepository;
+        this.cartRepository = cartRepository;
+        this.buildPcCartRepository = buildPcCartRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.debounceMillis = debounceMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-reprice");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.Type.UPDATED) {
+            return;
+        }
+        UUID productId = event.getProductId();
+        // Đã có lần chạy đang chờ thì lần đó sẽ đọc giá mới nhất, không cần lên lịch thêm
+        if (scheduled.add(productId)) {
+            scheduler.schedule(() -> runReprice(productId), debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Tính lại ngay giá các dòng giỏ của product, trả về số dòng đã cập nhật
+     */
+    public int reprice(UUID productId) {
+        Integer updated = transactionTemplate.execute(status -> {
+            Product product = productRepository.findById(productId).orElse(null);
+            if (product == null) {
+                return 0;
+            }
+            // Cart tính theo giá sau giảm, build PC cart tính theo giá gốc (giống lúc thêm vào giỏ)
+            BigDecimal unitPrice = Product.calculateFinalPrice(product.getPrice(), product.getDiscount());
+            List<UUID> affectedUsers = cartRepository.findUserIdsWithStalePrice(productId, unitPrice);
+            int carts = affectedUsers.isEmpty() ? 0 : cartRepository.repriceByProductId(productId, unitPrice);
+            int buildPcCarts = buildPcCartRepository.repriceByProductId(productId, product.getPrice());
+
+            // Tóm tắt giỏ đã cache / giỏ write-behind của các user bị ảnh hưởng được bỏ sau commit
+            affectedUsers.forEach(userId -> eventPublisher.publishEvent(new CartChangedEvent(userId)));
+            return carts + buildPcCarts;
+        });
+        return updated != null ? updated : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // Helper methods
+    private void runReprice(UUID productId) {
+        // Bỏ đánh dấu trước khi đọc giá: thay đổi đến trong lúc đang chạy sẽ lên lịch lần chạy mới
+        scheduled.remove(productId);
+        try {
+            int updated = reprice(productId);
+            if (updated > 0) {
+                log.info("Repriced {} cart lines for product {}", updated, productId);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error repricing carts for product {}: {}", productId, e.getMessage());
+        }
+    }
+}
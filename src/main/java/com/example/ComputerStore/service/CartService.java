@@ -1,6 +1,7 @@
 package com.example.ComputerStore.service;
 
 import com.example.ComputerStore.dto.request.AddToCartDto;
+import com.example.ComputerStore.dto.request.CartBatchDto;
 import com.example.ComputerStore.dto.request.UpdateCartInfoDto;
 import com.example.ComputerStore.dto.request.UpdateCartQuantityDto;
 import com.example.ComputerStore.dto.response.CartResponseDto;
@@ -17,6 +18,11 @@ public interface CartService {
      */
     CartResponseDto addToCart(UUID userId, AddToCartDto addToCartDto);
 
+    /**
+     * Áp dụng nhiều thao tác thêm / cập nhật / xóa trong một transaction, trả về giỏ hàng sau khi áp dụng
+     */
+    List<CartResponseDto> applyCartBatch(UUID userId, CartBatchDto cartBatchDto);
+
     /**
      * Lấy giỏ hàng của user
      */
@@ -0,0 +1,63 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.CartSummaryDto;
+import com.example.ComputerStore.event.CartChangedEvent;
+import com.example.ComputerStore.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cache tóm tắt giỏ hàng theo user, phục vụ badge trên header (số dòng, tổng số lượng, tổng tiền).
+ * Bị invalidate khi giỏ hàng của user thay đổi; TTL ngắn giới hạn độ trễ của thống kê tồn kho trong tóm tắt.
+ */
+@Service
+public class CartSummaryCache {
+
+    // Ước lượng một CartSummaryDto (các BigDecimal, object header), chưa tính tên sản phẩm
+    private static final long SUMMARY_BASE_BYTES = 384;
+
+    private final BoundedTtlCache<UUID, CartSummaryDto> summaries;
+
+    public CartSummaryCache(@Value("${app.cache.cart-summary.max-bytes:4194304}") long maxBytes,
+                            @Value("${app.cache.cart-summary.ttl-ms:60000}") long ttlMillis) {
+        this.summaries = new BoundedTtlCache<>("cart-summary", maxBytes, ttlMillis, CartSummaryCache::weigh);
+    }
+
+    public CartSummaryDto get(UUID userId, Function<UUID, CartSummaryDto> loader) {
+        return summaries.getOrLoad(userId, loader);
+    }
+
+    public void put(UUID userId, CartSummaryDto summary) {
+        summaries.put(userId, summary);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        summaries.invalidate(event.getUserId());
+    }
+
+    public void invalidateAll() {
+        summaries.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        return summaries.stats();
+    }
+
+    // Helper methods
+    private static long weigh(CartSummaryDto summary) {
+        CartSummaryDto.CartStatsDto stats = summary.getStats();
+        long chars = stats == null ? 0 : length(stats.getMostExpensiveItem()) + length(stats.getCheapestItem());
+        return SUMMARY_BASE_BYTES + chars * 2;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.CartResponseDto;
+import com.example.ComputerStore.dto.response.ProductSnapshot;
+import com.example.ComputerStore.entity.StockReservation;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import com.example.ComputerStore.event.CartChangedEvent;
+import com.example.ComputerStore.repository.CartRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.StockReservationRepository;
+import com.example.ComputerStore.util.AppendOnlyJournal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Chế độ giỏ hàng write-behind (tùy chọn, app.cart.write-behind.enabled): đổi số lượng của dòng giỏ đã có
+ * chỉ cập nhật bản sao giỏ hàng của user trong bộ nhớ và ghi một bản ghi vào journal append-only,
+ * rồi được flush định kỳ xuống bảng carts trong một transaction. Khi khởi động, các segment journal còn lại
+ * (process chết trước khi flush) được ghi lại vào DB.
+ * Mỗi lần ghi chỉ áp dụng nếu dòng chưa bị ghi sau thời điểm thay đổi (so updated_at), nên journal cũ
+ * hay flush trễ không ghi đè thay đổi mới hơn đi qua đường đồng bộ.
+ * Tăng số lượng vẫn giữ hàng đồng bộ (chặn oversell); giảm số lượng giữ nguyên phần đã giữ cho tới khi
+ * dòng được đồng bộ lại (flushUser) hoặc hết hạn giữ; phần giữ đã hết hạn được giữ lại ở lần đổi kế tiếp.
+ * Đơn giá trong response lấy theo snapshot hiện tại của product.
+ * Trạng thái nằm trong bộ nhớ của từng node nên chế độ này cần sticky session khi chạy nhiều node.
+ */
+@Service
+@Slf4j
+public class CartWriteBehindStore {
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ProductSnapshotStore productSnapshotStore;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockReservationService stockReservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNewTemplate;
+    private final boolean enabled;
+    private final long idleMillis;
+    private final AppendOnlyJournal journal;
+
+    private final Map<UUID, UserCart> carts = new ConcurrentHashMap<>();
+
+    private static final class Line {
+        private final UUID cartId;
+        private final UUID productId;
+        private final CartResponseDto view;
+        private CartResponseDto.ProductInCartDto product;
+        private BigDecimal unitPrice;
+        private int quantity;
+        // Số lượng đang giữ hàng trong stock_reservations (có thể lớn hơn quantity sau khi giảm)
+        private int reserved;
+        // Hạn giữ hàng; quá hạn thì expireDue có thể đã trả phần giữ về kho nên reserved không còn đúng
+        private LocalDateTime reservedUntil;
+        private LocalDateTime mutatedAt;
+        private boolean dirty;
+
+        Line(CartResponseDto view, int reserved, LocalDateTime reservedUntil) {
+            this.cartId = view.getCartId();
+            this.productId = view.getProduct().getProductId();
+            this.view = view;
+            this.product = view.getProduct();
+            this.unitPrice = product.getFinalPrice();
+            this.quantity = view.getQuantity();
+            this.reserved = reserved;
+            this.reservedUntil = reservedUntil;
+        }
+
+        boolean holdExpired(LocalDateTime now) {
+            return reservedUntil == null || !now.isBefore(reservedUntil);
+        }
+
+        void reprice(ProductSnapshot snapshot) {
+            unitPrice = snapshot.getFinalPrice();
+            product = product.toBuilder()
+                    .originalPrice(snapshot.getPrice())
+                    .finalPrice(snapshot.getFinalPrice())
+                    .discount(snapshot.getDiscount() != null ? BigDecimal.valueOf(snapshot.getDiscount()) : null)
+                    .build();
+        }
+
+        CartResponseDto toResponse() {
+            return CartResponseDto.builder()
+                    .cartId(cartId)
+                    .quantity(quantity)
+                    .totalPrice(totalPrice())
+                    .fullName(view.getFullName())
+                    .phone(view.getPhone())
+                    .address(view.getAddress())
+                    .addedAt(view.getAddedAt())
+                    .product(product)
+                    .build();
+        }
+
+        BigDecimal totalPrice() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    private static final class UserCart {
+        private final Map<UUID, Line> lines = new HashMap<>();
+        private volatile long lastAccess = System.currentTimeMillis();
+    }
+
+    // Một dòng cần ghi xuống DB (chụp lại lúc flush, hoặc đọc từ journal khi khởi động)
+    // Thành tiền không được lưu: lúc ghi DB tính theo giá hiện tại của product
+    private record PendingLine(UUID cartId, int quantity, LocalDateTime mutatedAt) {
+
+        String toRecord() {
+            return cartId + "," + quantity + "," + mutatedAt;
+        }
+
+        static PendingLine parse(String record) {
+            String[] parts = record.split(",");
+            return new PendingLine(UUID.fromString(parts[0]), Integer.parseInt(parts[1]), LocalDateTime.parse(parts[2]));
+        }
+    }
+
+    private record Captured(UserCart cart, Line line, PendingLine snapshot) {
+    }
+
+    public CartWriteBehindStore(CartRepository cartRepository,
+                                ProductRepository productRepository,
+                                ProductSnapshotStore productSnapshotStore,
+                                StockReservationRepository stockReservationRepository,
+                                StockReservationService stockReservationService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${app.cart.write-behind.journal-dir:data/cart-journal}") String journalDir,
+                                @Value("${app.cart.write-behind.journal-fsync:false}") boolean journalFsync,
+                                @Value("${app.cart.write-behind.idle-ms:600000}") long idleMillis) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.productSnapshotStore = productSnapshotStore;
+        this.stockReservationRepository = stockReservationRepository;
+        this.stockReservationService = stockReservationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.idleMillis = idleMillis;
+        this.journal = enabled ? new AppendOnlyJournal(Path.of(journalDir), "cart", journalFsync) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            replayJournal();
+        }
+    }
+
+    /**
+     * Đổi số lượng một dòng đã có trong giỏ của user mà không ghi DB (trừ khi cần giữ thêm hàng).
+     * loader trả về giỏ hàng hiện tại từ DB, chỉ được gọi lần đầu user thao tác (hoặc sau khi bị evict).
+     */
+    public CartResponseDto updateQuantity(UUID userId, UUID productId, int quantity,
+                                          Function<UUID, List<CartResponseDto>> loader) {
+        UserCart cart = session(userId, loader);
+        synchronized (cart) {
+            Line line = cart.lines.get(productId);
+            if (line == null) {
+                throw new RuntimeException("Sản phẩm không có trong giỏ hàng");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (quantity > line.reserved || line.holdExpired(now)) {
+                StockReservation held = stockReservationService.hold(userId, productId, ReservationSource.CART, quantity);
+                line.reserved = quantity;
+                line.reservedUntil = held.getExpiresAt();
+            }
+            refreshPrice(line);
+
+            // Ghi journal trước khi đổi trạng thái trong bộ nhớ
+            journal.append(new PendingLine(line.cartId, quantity, now).toRecord());
+            line.quantity = quantity;
+            line.mutatedAt = now;
+            line.dirty = true;
+            cart.lastAccess = System.currentTimeMillis();
+            return line.toResponse();
+        }
+    }
+
+    /**
+     * Ghi ngay các thay đổi chưa flush của user (transaction riêng) và trả phần giữ hàng thừa về kho.
+     * Gọi trước mọi thao tác đọc / ghi giỏ hàng đi qua DB để user luôn đọc được thay đổi của chính mình.
+     */
+    public void flushUser(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+        UserCart cart = carts.get(userId);
+        if (cart == null) {
+            return;
+        }
+        synchronized (cart) {
+            List<Line> dirty = cart.lines.values().stream().filter(line -> line.dirty).toList();
+            List<Line> overReserved = cart.lines.values().stream().filter(line -> line.reserved > line.quantity).toList();
+            if (dirty.isEmpty() && overReserved.isEmpty()) {
+                return;
+            }
+            // Giữ monitor trong lúc ghi để không có thay đổi số lượng nào chen vào giữa lúc chốt phần giữ hàng
+            Map<Line, LocalDateTime> heldUntil = new HashMap<>();
+            requiresNewTemplate.executeWithoutResult(status -> {
+                dirty.forEach(line -> apply(pendingOf(line)));
+                for (Line line : overReserved) {
+                    heldUntil.put(line, stockReservationService
+                            .hold(userId, line.productId, ReservationSource.CART, line.quantity).getExpiresAt());
+                }
+            });
+            dirty.forEach(line -> line.dirty = false);
+            overReserved.forEach(line -> {
+                line.reserved = line.quantity;
+                line.reservedUntil = heldUntil.get(line);
+            });
+        }
+    }
+
+    /**
+     * Flush định kỳ: niêm phong segment journal hiện tại, ghi mọi dòng đã đổi trong một transaction
+     * rồi xóa các segment đã được ghi
+     */
+    @Scheduled(initialDelayString = "${app.cart.write-behind.flush-ms:1000}",
+            fixedDelayString = "${app.cart.write-behind.flush-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        // Rotate trước rồi mới chụp: bản ghi nào nằm trong segment niêm phong thì dòng của nó đã dirty lúc chụp
+        long sealed = journal.rotate();
+        List<Captured> pending = new ArrayList<>();
+        long idleBefore = System.currentTimeMillis() - idleMillis;
+        for (Iterator<UserCart> it = carts.values().iterator(); it.hasNext(); ) {
+            UserCart cart = it.next();
+            synchronized (cart) {
+                boolean captured = false;
+                for (Line line : cart.lines.values()) {
+                    if (line.dirty) {
+                        pending.add(new Captured(cart, line, pendingOf(line)));
+                        line.dirty = false;
+                        captured = true;
+                    }
+                }
+                if (!captured && cart.lastAccess < idleBefore
+                        && cart.lines.values().stream().noneMatch(line -> line.reserved > line.quantity)) {
+                    it.remove();
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> pending.forEach(c -> apply(c.snapshot())));
+            } catch (RuntimeException e) {
+                // Ghi lại vào segment hiện tại (segment niêm phong sẽ bị xóa ở lần flush thành công sau)
+                // và đánh dấu dirty để lần flush sau thử tiếp
+                pending.forEach(this::retryLater);
+                log.error("Cart write-behind flush failed for {} lines: {}", pending.size(), e.getMessage());
+                return;
+            }
+        }
+        journal.deleteUpTo(sealed);
+    }
+
+    /**
+     * Giỏ hàng đã thay đổi qua đường đồng bộ: bỏ bản sao trong bộ nhớ (nếu không còn thay đổi chưa ghi)
+     * để lần sau load lại từ DB
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        carts.computeIfPresent(event.getUserId(), (userId, cart) -> {
+            synchronized (cart) {
+                boolean clean = cart.lines.values().stream()
+                        .noneMatch(line -> line.dirty || line.reserved > line.quantity);
+                return clean ? null : cart;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            flush();
+            journal.close();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long dirty = carts.values().stream()
+                .mapToLong(cart -> {
+                    synchronized (cart) {
+                        return cart.lines.values().stream().filter(line -> line.dirty).count();
+                    }
+                })
+                .sum();
+        return Map.of("name", "cart-write-behind", "enabled", enabled, "sessions", carts.size(), "dirtyLines", dirty);
+    }
+
+    // Helper methods
+    private UserCart session(UUID userId, Function<UUID, List<CartResponseDto>> loader) {
+        UserCart cart = carts.get(userId);
+        if (cart != null) {
+            return cart;
+        }
+        Map<UUID, StockReservation> reservations = new HashMap<>();
+        for (StockReservation reservation : stockReservationRepository.findByUserIdAndSource(userId, ReservationSource.CART)) {
+            reservations.put(reservation.getProductId(), reservation);
+        }
+        UserCart loaded = new UserCart();
+        for (CartResponseDto view : loader.apply(userId)) {
+            UUID productId = view.getProduct().getProductId();
+            StockReservation reservation = reservations.get(productId);
+            loaded.lines.put(productId, reservation == null
+                    ? new Line(view, 0, null)
+                    : new Line(view, reservation.getQuantity(), reservation.getExpiresAt()));
+        }
+        UserCart existing = carts.putIfAbsent(userId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    // Đơn giá theo snapshot hiện tại của product (load lại product nếu snapshot đã bị bỏ sau khi product đổi)
+    private void refreshPrice(Line line) {
+        ProductSnapshot snapshot = productSnapshotStore.find(line.productId)
+                .or(() -> productRepository.findById(line.productId).map(productSnapshotStore::snapshotOf))
+                .orElse(null);
+        if (snapshot != null && snapshot.getFinalPrice() != null
+                && snapshot.getFinalPrice().compareTo(line.unitPrice) != 0) {
+            line.reprice(snapshot);
+        }
+    }
+
+    private PendingLine pendingOf(Line line) {
+        return new PendingLine(line.cartId, line.quantity, line.mutatedAt);
+    }
+
+    private void apply(PendingLine line) {
+        cartRepository.applyDeferredQuantity(line.cartId(), line.quantity(), line.mutatedAt());
+    }
+
+    private void retryLater(Captured captured) {
+        journal.append(captured.snapshot().toRecord());
+        synchronized (captured.cart()) {
+            // Dòng đã đổi tiếp sau lúc chụp thì vẫn đang dirty, không cần làm gì
+            if (Objects.equals(captured.line().mutatedAt, captured.snapshot().mutatedAt())) {
+                captured.line().dirty = true;
+            }
+        }
+    }
+
+    private void replayJournal() {
+        long sealed = journal.rotate();
+        // Bản ghi sau cùng của mỗi dòng là trạng thái mới nhất; dòng cuối bị cắt dở (crash khi đang ghi) bỏ qua
+        Map<UUID, PendingLine> latest = new LinkedHashMap<>();
+        for (String record : journal.readUpTo(sealed)) {
+            try {
+                PendingLine line = PendingLine.parse(record);
+                latest.put(line.cartId(), line);
+            } catch (RuntimeException e) {
+                log.warn("Skipping unreadable cart journal record: {}", record);
+            }
+        }
+        if (!latest.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> latest.values().forEach(this::apply));
+            log.info("Replayed {} cart lines from write-behind journal", latest.size());
+        }
+        journal.deleteUpTo(sealed);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.request.CheckoutDto;
+import com.example.ComputerStore.dto.response.CheckoutResponseDto;
+
+import java.util.UUID;
+
+public interface CheckoutService {
+
+    /**
+     * Đặt hàng toàn bộ giỏ hàng của user trong một transaction: mỗi dòng giỏ thành một payment
+     * dùng chung idPayment, chuyển hàng đang giữ thành đã bán và xóa giỏ hàng
+     */
+    CheckoutResponseDto checkout(UUID userId, CheckoutDto checkoutDto);
+}
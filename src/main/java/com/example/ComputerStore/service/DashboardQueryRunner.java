@@ -0,0 +1,112 @@
+package com.example.ComputerStore.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Chạy song song các query độc lập của dashboard trên một thread pool giới hạn.
+ * Mỗi query có timeout riêng; query chậm / lỗi / bị từ chối do pool đầy được bỏ qua
+ * và trả về trong danh sách failed thay vì làm hỏng cả response.
+ * Query quá hạn bị hủy (interrupt thread) và mỗi query chạy trong transaction read-only có timeout,
+ * nên câu SQL cũng bị hủy phía DB (JDBC query timeout) thay vì tiếp tục chạy và giữ connection.
+ */
+@Component
+@Slf4j
+public class DashboardQueryRunner {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final TransactionTemplate transactionTemplate;
+
+    public record Result(Map<String, Object> values, List<String> failed) {
+
+        public boolean isPartial() {
+            return !failed.isEmpty();
+        }
+    }
+
+    public DashboardQueryRunner(@Value("${app.dashboard.query-threads:8}") int threads,
+                                @Value("${app.dashboard.query-queue-capacity:64}") int queueCapacity,
+                                @Value("${app.dashboard.query-timeout-ms:3000}") long timeoutMs,
+                                PlatformTransactionManager transactionManager) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-query-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutMs = timeoutMs;
+        // Timeout của transaction được Spring áp vào từng query JPA (jakarta.persistence.query.timeout),
+        // Hibernate chuyển thành Statement.setQueryTimeout; đơn vị giây nên làm tròn lên
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout((int) Math.max(1, (timeoutMs + 999) / 1000));
+    }
+
+    /**
+     * Chạy mọi query cùng lúc và chờ tối đa timeout; thời gian tổng xấp xỉ query chậm nhất
+     */
+    public Result run(Map<String, Supplier<?>> queries) {
+        Map<String, CompletableFuture<?>> futures = new LinkedHashMap<>();
+        queries.forEach((key, query) -> futures.put(key, submit(key, query)));
+
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .join();
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        futures.forEach((key, future) -> {
+            if (future.isCompletedExceptionally()) {
+                failed.add(key);
+            } else {
+                values.put(key, future.join());
+            }
+        });
+        return new Result(values, failed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Helper methods
+    private CompletableFuture<?> submit(String key, Supplier<?> query) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(transactionTemplate.execute(status -> query.get()));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Dashboard query '{}' rejected, executor is saturated", key);
+            return CompletableFuture.failedFuture(e);
+        }
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((value, e) -> {
+                    if (e != null) {
+                        // Hết hạn: hủy task (bỏ khỏi hàng đợi nếu chưa chạy, interrupt nếu đang chạy)
+                        task.cancel(true);
+                        log.warn("Dashboard query '{}' failed: {}", key, e.toString());
+                    }
+                });
+    }
+}
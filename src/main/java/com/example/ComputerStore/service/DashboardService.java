@@ -12,7 +12,7 @@ public interface DashboardService {
     ApiResponse<Map<String, Object>> getDashboardStats();
     
     /**
-     * Get revenue statistics by period (week, month, quarter, year)
+     * Get revenue statistics by period (day, week, month, quarter, year)
      */
     ApiResponse<Map<String, Object>> getRevenueStats(String period);
     
@@ -30,4 +30,19 @@ public interface DashboardService {
      * Get payment/order statistics
      */
     ApiResponse<Map<String, Object>> getOrderStats();
+    
+    /**
+     * Get pie chart data (payment status, products by category, revenue by component / payment type)
+     */
+    ApiResponse<Map<String, Object>> getPieChartData();
+    
+    /**
+     * Get approximate distinct buyers by period (HyperLogLog)
+     */
+    ApiResponse<Map<String, Object>> getBuyerStats(String period);
+    
+    /**
+     * Get approximate order value percentiles p50 / p90 / p99 by period
+     */
+    ApiResponse<Map<String, Object>> getOrderValueStats(String period);
 }
@@ -0,0 +1,136 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.ApiResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Cache snapshot kết quả các endpoint dashboard theo key (endpoint + kỳ), kiểu stale-while-revalidate:
+ * - snapshot còn trong freshness window: trả luôn
+ * - quá hạn nhưng chưa quá max-stale: trả snapshot cũ và tính lại ở background
+ * - chưa có / quá max-stale: chờ tính lại
+ * Mỗi key chỉ có tối đa một lần tính lại đang chạy, các request đồng thời dùng chung kết quả.
+ */
+@Component
+@Slf4j
+public class DashboardSnapshotCache {
+
+    private final long freshMs;
+    private final long maxStaleMs;
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Snapshot>> inFlight = new ConcurrentHashMap<>();
+
+    // complete = false khi kết quả chỉ có một phần (query bị timeout), coi như hết hạn ngay để lần sau tính lại
+    private record Snapshot(ApiResponse<Map<String, Object>> response, long takenAt, boolean complete) {
+    }
+
+    public DashboardSnapshotCache(@Value("${app.dashboard.snapshot-fresh-ms:30000}") long freshMs,
+                                  @Value("${app.dashboard.snapshot-max-stale-ms:600000}") long maxStaleMs,
+                                  @Value("${app.dashboard.snapshot-refresh-threads:2}") int refreshThreads) {
+        this.freshMs = freshMs;
+        this.maxStaleMs = maxStaleMs;
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-snapshot-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Lấy snapshot của key, tính bằng loader khi cần. Response thành công được bổ sung
+     * snapshotTakenAt, snapshotAgeMs và stale.
+     */
+    public ApiResponse<Map<String, Object>> get(String key, Supplier<ApiResponse<Map<String, Object>>> loader) {
+        Snapshot snapshot = snapshots.get(key);
+        long now = System.currentTimeMillis();
+        long age = snapshot == null ? Long.MAX_VALUE : now - snapshot.takenAt();
+
+        if (snapshot != null && snapshot.complete() && age < freshMs) {
+            return withAge(snapshot, now, false);
+        }
+        if (snapshot != null && age < maxStaleMs) {
+            refresh(key, loader, refreshExecutor);
+            return withAge(snapshot, now, true);
+        }
+
+        Snapshot loaded = refresh(key, loader, Runnable::run).join();
+        return withAge(loaded, System.currentTimeMillis(), false);
+    }
+
+    public void invalidateAll() {
+        snapshots.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    // Helper methods
+    private CompletableFuture<Snapshot> refresh(String key, Supplier<ApiResponse<Map<String, Object>>> loader,
+                                                Executor executor) {
+        CompletableFuture<Snapshot> created = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        Runnable task = () -> {
+            try {
+                ApiResponse<Map<String, Object>> response = loader.get();
+                boolean partial = response.getData() != null && Boolean.TRUE.equals(response.getData().get("partial"));
+                Snapshot snapshot = new Snapshot(response, System.currentTimeMillis(), !partial);
+                // Response lỗi không được cache, snapshot cũ (nếu có) vẫn được giữ
+                if (response.isSuccess()) {
+                    snapshots.put(key, snapshot);
+                }
+                created.complete(snapshot);
+            } catch (Exception e) {
+                log.warn("Dashboard snapshot '{}' refresh failed: {}", key, e.toString());
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private ApiResponse<Map<String, Object>> withAge(Snapshot snapshot, long now, boolean stale) {
+        ApiResponse<Map<String, Object>> response = snapshot.response();
+        if (!response.isSuccess() || response.getData() == null) {
+            return response;
+        }
+        Map<String, Object> data = new HashMap<>(response.getData());
+        data.put("snapshotTakenAt",
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.takenAt()), ZoneId.systemDefault()));
+        data.put("snapshotAgeMs", now - snapshot.takenAt());
+        data.put("stale", stale);
+        return ApiResponse.<Map<String, Object>>builder()
+                .success(true)
+                .message(response.getMessage())
+                .data(data)
+                .build();
+    }
+}
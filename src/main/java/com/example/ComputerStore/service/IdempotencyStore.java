@@ -0,0 +1,108 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lưu response của các request ghi có header Idempotency-Key để trả lại nguyên văn khi client gửi lại
+ * (retry do mất mạng), không chạy lại transaction. Response được giữ trong cache có giới hạn bytes và TTL;
+ * key đang được xử lý được đánh dấu để request trùng đến cùng lúc không chạy song song.
+ */
+@Service
+public class IdempotencyStore {
+
+    // Ước lượng phần cố định của một entry (key, fingerprint, content type, object header)
+    private static final long ENTRY_BASE_BYTES = 512;
+
+    private final BoundedTtlCache<String, StoredResponse> responses;
+
+    // Key đang được xử lý -> fingerprint của request đang chạy
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(@Value("${app.idempotency.max-bytes:8388608}") long maxBytes,
+                            @Value("${app.idempotency.ttl-ms:86400000}") long ttlMillis) {
+        this.responses = new BoundedTtlCache<>("idempotency", maxBytes, ttlMillis, IdempotencyStore::weigh);
+    }
+
+    public enum Decision {
+        // Chưa thấy key: chạy request rồi gọi complete / abandon
+        PROCEED,
+        // Đã có response cho key với cùng request: trả lại response đã lưu
+        REPLAY,
+        // Key đang được một request khác xử lý
+        IN_PROGRESS,
+        // Key đã được dùng cho một request có nội dung khác
+        MISMATCH
+    }
+
+    public record Outcome(Decision decision, StoredResponse response) {
+    }
+
+    public record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * Bắt đầu xử lý request với key; PROCEED nghĩa là request này đã giữ key
+     */
+    public Outcome begin(String key, String fingerprint) {
+        Outcome cached = lookup(key, fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+        String running = inFlight.putIfAbsent(key, fingerprint);
+        if (running != null) {
+            return new Outcome(running.equals(fingerprint) ? Decision.IN_PROGRESS : Decision.MISMATCH, null);
+        }
+        // Request trước có thể vừa hoàn tất giữa lần đọc cache và lúc giữ key
+        cached = lookup(key, fingerprint);
+        if (cached != null) {
+            inFlight.remove(key);
+            return cached;
+        }
+        return new Outcome(Decision.PROCEED, null);
+    }
+
+    /**
+     * Lưu response của request đã giữ key và nhả key (lưu trước khi nhả để request trùng luôn thấy response)
+     */
+    public void complete(String key, StoredResponse response) {
+        responses.put(key, response);
+        inFlight.remove(key);
+    }
+
+    /**
+     * Nhả key mà không lưu response (request lỗi), lần gửi lại sẽ được chạy lại
+     */
+    public void abandon(String key) {
+        inFlight.remove(key);
+    }
+
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = responses.stats();
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    // Helper methods
+    private Outcome lookup(String key, String fingerprint) {
+        StoredResponse stored = responses.get(key);
+        if (stored == null) {
+            return null;
+        }
+        return stored.fingerprint().equals(fingerprint)
+                ? new Outcome(Decision.REPLAY, stored)
+                : new Outcome(Decision.MISMATCH, null);
+    }
+
+    private static long weigh(StoredResponse response) {
+        return ENTRY_BASE_BYTES + response.body().length;
+    }
+}
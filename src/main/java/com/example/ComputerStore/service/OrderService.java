@@ -0,0 +1,12 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.enumeric.PaymentStatus;
+
+public interface OrderService {
+
+    /**
+     * Kiểm tra và đưa yêu cầu đổi trạng thái đơn hàng vào hàng đợi; việc đổi trạng thái, trả kho khi hủy,
+     * cập nhật doanh thu và gửi mail chạy nền
+     */
+    void requestStatusChange(String idPayment, PaymentStatus status);
+}
@@ -0,0 +1,167 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.OrderTask;
+import com.example.ComputerStore.entity.Payment;
+import com.example.ComputerStore.enumeric.OrderTaskType;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Xử lý từng việc của hàng đợi đơn hàng sau khi worker đã nhận việc. Đổi trạng thái chạy trong transaction
+ * của worker, gửi mail chạy ngoài transaction.
+ * Ném exception để việc được thử lại; các việc không còn áp dụng được (đơn đã bị xóa / đã đổi trạng thái)
+ * chỉ ghi log và được coi là xong.
+ */
+@Service
+@Slf4j
+public class OrderTaskProcessor {
+
+    private final PaymentRepository paymentRepository;
+    private final ProductRepository productRepository;
+    private final JavaMailSender mailSender;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean mailEnabled;
+
+    public OrderTaskProcessor(PaymentRepository paymentRepository,
+                              ProductRepository productRepository,
+                              JavaMailSender mailSender,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${app.orders.mail.enabled:true}") boolean mailEnabled) {
+        this.paymentRepository = paymentRepository;
+        this.productRepository = productRepository;
+        this.mailSender = mailSender;
+        this.eventPublisher = eventPublisher;
+        this.mailEnabled = mailEnabled;
+    }
+
+    /**
+     * Xử lý một việc; trả về các việc phát sinh cần đưa vào hàng đợi khi việc này được ghi nhận xong
+     */
+    public List<OrderTask> process(OrderTask task) {
+        return switch (task.getType()) {
+            case ORDER_CONFIRMATION_MAIL -> {
+                sendConfirmationMail(task.getIdPayment());
+                yield List.of();
+            }
+            case CHANGE_STATUS -> changeStatus(task.getIdPayment(), task.getTargetStatus());
+            case STATUS_MAIL -> {
+                sendStatusMail(task.getIdPayment(), task.getTargetStatus());
+                yield List.of();
+            }
+        };
+    }
+
+    // Helper methods
+    // Đổi trạng thái mọi dòng của đơn; rollup doanh thu được cập nhật qua PaymentChangedEvent sau commit,
+    // hủy đơn thì trả hàng về kho
+    private List<OrderTask> changeStatus(String idPayment, PaymentStatus target) {
+        List<Payment> payments = paymentRepository.findAllByIdPaymentForUpdate(idPayment);
+        if (payments.isEmpty()) {
+            log.warn("Order {} no longer exists, skipping status change to {}", idPayment, target);
+            return List.of();
+        }
+        PaymentStatus current = payments.get(0).getStatus();
+        if (current == target) {
+            return List.of();
+        }
+        if (!current.canTransitionTo(target)) {
+            log.warn("Order {} cannot move from {} to {}, skipping", idPayment, current, target);
+            return List.of();
+        }
+
+        payments.forEach(payment -> payment.setStatus(target));
+        paymentRepository.saveAll(payments);
+
+        if (target == PaymentStatus.CANCELLED) {
+            for (Payment payment : payments) {
+                productRepository.incrementStock(payment.getProduct().getId(), payment.getQuantity());
+            }
+            payments.stream()
+                .map(payment -> payment.getProduct().getId())
+                .distinct()
+                .forEach(productId -> productRepository.findStockById(productId)
+                    .ifPresent(stock -> eventPublisher.publishEvent(ProductChangedEvent.stockChanged(productId, stock))));
+        }
+        log.info("Order {} moved from {} to {}", idPayment, current, target);
+
+        // Mail gửi bằng việc riêng để SMTP lỗi không chặn việc đổi trạng thái
+        return List.of(OrderTask.builder()
+            .type(OrderTaskType.STATUS_MAIL)
+            .idPayment(idPayment)
+            .targetStatus(target)
+            .build());
+    }
+
+    private void sendConfirmationMail(String idPayment) {
+        List<Payment> payments = paymentRepository.findAllByIdPayment(idPayment);
+        if (payments.isEmpty()) {
+            log.warn("Order {} no longer exists, skipping confirmation mail", idPayment);
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Payment payment : payments) {
+            lines.append("- ").append(payment.getProduct().getName())
+                .append(" x ").append(payment.getQuantity())
+                .append(": ").append(payment.getTotalPrice().toPlainString()).append(" VND\n");
+            total = total.add(payment.getTotalPrice());
+        }
+        Payment first = payments.get(0);
+        send(first.getUser().getEmail(),
+            "Computer Store - Xác nhận đơn hàng " + idPayment,
+            "Xin chào " + first.getFullName() + ",\n\n" +
+            "Cảm ơn bạn đã đặt hàng tại Computer Store. Đơn hàng " + idPayment + " gồm:\n" +
+            lines +
+            "\nTổng cộng: " + total.toPlainString() + " VND\n" +
+            "Thanh toán: " + first.getTypePayment() + "\n" +
+            "Giao tới: " + first.getFullName() + " - " + first.getPhone() + " - " + first.getAddress() + "\n\n" +
+            "Trân trọng,\n" +
+            "Computer Store Team");
+    }
+
+    private void sendStatusMail(String idPayment, PaymentStatus status) {
+        List<Payment> payments = paymentRepository.findAllByIdPayment(idPayment);
+        if (payments.isEmpty()) {
+            return;
+        }
+        Payment first = payments.get(0);
+        send(first.getUser().getEmail(),
+            "Computer Store - Cập nhật đơn hàng " + idPayment,
+            "Xin chào " + first.getFullName() + ",\n\n" +
+            "Đơn hàng " + idPayment + " của bạn đã chuyển sang trạng thái: " + statusLabel(status) + ".\n\n" +
+            "Trân trọng,\n" +
+            "Computer Store Team");
+    }
+
+    private void send(String to, String subject, String text) {
+        if (!mailEnabled) {
+            log.info("Order mail disabled, skipping '{}' to {}", subject, to);
+            return;
+        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(text);
+        mailSender.send(message);
+    }
+
+    private String statusLabel(PaymentStatus status) {
+        return switch (status) {
+            case PENDING -> "Chờ xác nhận";
+            case COMPLETED -> "Đã xác nhận";
+            case DELIVERED -> "Đã giao hàng";
+            case CANCELLED -> "Đã hủy";
+        };
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.OrderTask;
+import com.example.ComputerStore.enumeric.OrderTaskStatus;
+import com.example.ComputerStore.enumeric.OrderTaskType;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.repository.OrderTaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hàng đợi việc xử lý đơn hàng lưu trong bảng order_tasks (outbox): việc được ghi trong cùng transaction
+ * với đơn hàng nên không mất khi process chết, request trả về ngay khi đơn commit.
+ * Mỗi node chạy tối đa app.orders.queue.workers worker; mỗi worker nhận từng việc bằng
+ * SELECT ... FOR UPDATE SKIP LOCKED và commit ngay với trạng thái IN_PROGRESS kèm thời hạn nhận (lease),
+ * rồi mới xử lý: không giữ khóa dòng / connection trong lúc gửi mail, nhiều worker / nhiều node rút hàng đợi
+ * song song mà không xử lý trùng. Worker chết giữa chừng thì việc được nhận lại khi hết lease.
+ * Worker được đánh thức sau commit của việc mới và theo chu kỳ poll.
+ */
+@Service
+@Slf4j
+public class OrderTaskQueue {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OrderTaskRepository orderTaskRepository;
+    private final OrderTaskProcessor orderTaskProcessor;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long retryMaxMillis;
+    private final long leaseMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public OrderTaskQueue(OrderTaskRepository orderTaskRepository,
+                          OrderTaskProcessor orderTaskProcessor,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.orders.queue.workers:2}") int workers,
+                          @Value("${app.orders.queue.max-attempts:10}") int maxAttempts,
+                          @Value("${app.orders.queue.retry-base-ms:5000}") long retryBaseMillis,
+                          @Value("${app.orders.queue.retry-max-ms:600000}") long retryMaxMillis,
+                          @Value("${app.orders.queue.lease-ms:300000}") long leaseMillis) {
+        this.orderTaskRepository = orderTaskRepository;
+        this.orderTaskProcessor = orderTaskProcessor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMillis = retryBaseMillis;
+        this.retryMaxMillis = retryMaxMillis;
+        this.leaseMillis = leaseMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Ghi việc vào hàng đợi trong transaction hiện tại; worker được đánh thức sau khi transaction commit
+     */
+    @Transactional
+    public void enqueue(OrderTaskType type, String idPayment, PaymentStatus targetStatus) {
+        save(OrderTask.builder()
+                .type(type)
+                .idPayment(idPayment)
+                .targetStatus(targetStatus)
+                .build());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Đánh thức worker định kỳ: nhặt việc đến hạn thử lại và việc do node khác ghi
+     */
+    @Scheduled(initialDelayString = "${app.orders.queue.poll-ms:1000}",
+               fixedDelayString = "${app.orders.queue.poll-ms:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Nhận và xử lý một việc đến hạn (nếu có); trả về false khi không còn việc nào lấy được
+     * hoặc không ghi được kết quả (worker dừng, việc được nhận lại khi hết lease)
+     */
+    public boolean processNext() {
+        OrderTask task = transactionTemplate.execute(status -> claim());
+        if (task == null) {
+            return false;
+        }
+        try {
+            if (task.getType() == OrderTaskType.CHANGE_STATUS) {
+                // Chỉ thao tác DB: đổi trạng thái, ghi việc phát sinh và xóa việc trong cùng một transaction
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<OrderTask> followUps = orderTaskProcessor.process(task);
+                    complete(task);
+                    followUps.forEach(this::save);
+                });
+            } else {
+                // Gửi mail ngoài transaction; ghi nhận xong chạy sau trong transaction ngắn
+                List<OrderTask> followUps = orderTaskProcessor.process(task);
+                transactionTemplate.executeWithoutResult(status -> {
+                    complete(task);
+                    followUps.forEach(this::save);
+                });
+            }
+            processed.incrementAndGet();
+            return true;
+        } catch (RuntimeException e) {
+            return recordFailure(task, e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("activeWorkers", activeWorkers.get());
+        stats.put("pending", orderTaskRepository.countByStatus(OrderTaskStatus.PENDING));
+        stats.put("inProgress", orderTaskRepository.countByStatus(OrderTaskStatus.IN_PROGRESS));
+        stats.put("failed", orderTaskRepository.countByStatus(OrderTaskStatus.FAILED));
+        stats.put("processed", processed.get());
+        stats.put("retried", retried.get());
+        stats.put("gaveUp", failed.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Helper methods
+    // Khóa một việc đến hạn (hoặc việc IN_PROGRESS đã hết lease) và gia hạn lease; commit ngay để nhả khóa dòng
+    private OrderTask claim() {
+        List<OrderTask> tasks = orderTaskRepository.claimDue(LocalDateTime.now(), 1);
+        if (tasks.isEmpty()) {
+            return null;
+        }
+        OrderTask task = tasks.get(0);
+        task.setStatus(OrderTaskStatus.IN_PROGRESS);
+        // Cắt về mili giây để giá trị đọc lại từ DB so khớp được khi xóa
+        task.setAvailableAt(LocalDateTime.now().plusNanos(leaseMillis * 1_000_000).truncatedTo(ChronoUnit.MILLIS));
+        return orderTaskRepository.save(task);
+    }
+
+    // Xóa việc đã xong nếu worker này vẫn giữ lease; mất lease (worker khác đã nhận lại) thì rollback
+    private void complete(OrderTask task) {
+        if (orderTaskRepository.deleteClaimed(task.getId(), task.getAvailableAt()) == 0) {
+            throw new IllegalStateException("Lease of order task " + task.getId() + " expired before completion");
+        }
+    }
+
+    private void save(OrderTask task) {
+        task.setStatus(OrderTaskStatus.PENDING);
+        task.setAttempts(0);
+        task.setAvailableAt(LocalDateTime.now());
+        orderTaskRepository.save(task);
+    }
+
+    // Thêm một worker nếu chưa đủ số worker; worker chạy tới khi hàng đợi không còn việc đến hạn
+    private void wakeUp() {
+        int active;
+        do {
+            active = activeWorkers.get();
+            if (active >= workers) {
+                return;
+            }
+        } while (!activeWorkers.compareAndSet(active, active + 1));
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted() && processNext()) {
+                // Lấy việc tiếp theo
+            }
+        } catch (RuntimeException e) {
+            log.error("Order worker stopped: {}", e.getMessage());
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    // Lùi thời điểm chạy lại theo cấp số nhân; quá số lần cho phép thì chuyển sang FAILED.
+    // Trả về false nếu không ghi được (DB lỗi) để worker dừng thay vì lặp lại ngay
+    private boolean recordFailure(OrderTask claimed, RuntimeException error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderTaskRepository.findById(claimed.getId())
+                    .filter(task -> task.getStatus() == OrderTaskStatus.IN_PROGRESS
+                            && task.getAvailableAt().equals(claimed.getAvailableAt()))
+                    .ifPresent(task -> {
+                int attempts = task.getAttempts() + 1;
+                String message = String.valueOf(error.getMessage());
+                task.setAttempts(attempts);
+                task.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                if (attempts >= maxAttempts) {
+                    task.setStatus(OrderTaskStatus.FAILED);
+                    failed.incrementAndGet();
+                    log.error("Order task {} {} for order {} failed after {} attempts: {}",
+                            task.getType(), task.getId(), task.getIdPayment(), attempts, message);
+                } else {
+                    long delay = Math.min(retryMaxMillis, retryBaseMillis << Math.min(attempts - 1, 20));
+                    task.setStatus(OrderTaskStatus.PENDING);
+                    task.setAvailableAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+                    retried.incrementAndGet();
+                    log.warn("Order task {} {} for order {} failed (attempt {}), retrying in {} ms: {}",
+                            task.getType(), task.getId(), task.getIdPayment(), attempts, delay, message);
+                }
+                orderTaskRepository.save(task);
+            }));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Could not record failure of order task {}: {}", claimed.getId(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.PaymentRollup;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.enumeric.RollupGranularity;
+import com.example.ComputerStore.event.PaymentChangedEvent;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.PaymentRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Bảng tổng hợp doanh thu theo giờ / ngày / tháng cho dashboard. Mỗi payment được tạo / đổi trạng thái
+ * được cộng dồn vào payment_rollups sau khi commit, nên thống kê theo kỳ chỉ đọc vài chục dòng
+ * thay vì quét bảng payments. Bảng được build lại toàn bộ từ payments theo lịch để sửa lệch.
+ * Rebuild được rào với các transaction ghi payment trên node này: chờ mọi transaction đã ghi payment
+ * cộng xong delta rồi mới đọc payments, và transaction ghi payment mới phải chờ tới khi rebuild commit.
+ * Nhờ vậy mỗi payment hoặc nằm trong kết quả rebuild, hoặc được cộng delta sau rebuild, không bao giờ cả hai.
+ */
+@Service
+@Slf4j
+public class PaymentRollupService {
+
+    // Format DATE_FORMAT (MySQL) của mốc đầu bucket cho từng granularity
+    private static final Map<RollupGranularity, String> BUCKET_FORMATS = Map.of(
+            RollupGranularity.HOUR, "%Y-%m-%d %H:00:00",
+            RollupGranularity.DAY, "%Y-%m-%d 00:00:00",
+            RollupGranularity.MONTH, "%Y-%m-01 00:00:00");
+
+    // Thời gian tối đa chờ các transaction ghi payment đang dở xong trước khi rebuild (quá thì bỏ lượt này)
+    private static final long REBUILD_DRAIN_TIMEOUT_MS = 60_000;
+
+    private final PaymentRollupRepository paymentRollupRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate rebuildTransaction;
+
+    // Rào giữa rebuild và delta: số transaction đã ghi payment nhưng chưa cộng xong delta, và cờ đang rebuild
+    private final Object fence = new Object();
+    private int paymentWritesInFlight;
+    private boolean rebuilding;
+
+    public PaymentRollupService(PaymentRollupRepository paymentRollupRepository,
+                                PaymentRepository paymentRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.paymentRollupRepository = paymentRollupRepository;
+        this.paymentRepository = paymentRepository;
+        // READ COMMITTED: INSERT ... SELECT đọc payments theo snapshot, không đặt shared next-key lock
+        // lên toàn bộ bảng payments (REPEATABLE READ mặc định sẽ chặn checkout / đổi trạng thái đơn tới khi build xong)
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    public record Totals(BigDecimal revenue, long orders, long quantity) {
+
+        public static final Totals ZERO = new Totals(BigDecimal.ZERO, 0, 0);
+
+        static Totals of(PaymentRollup rollup) {
+            return new Totals(rollup.getRevenue(), rollup.getOrderCount(), rollup.getQuantity());
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(revenue.add(other.revenue), orders + other.orders, quantity + other.quantity);
+        }
+    }
+
+    public record SeriesPoint(LocalDateTime bucketStart, BigDecimal revenue, long orders) {
+    }
+
+    /**
+     * Thống kê một khoảng thời gian. Doanh thu (completed*, series) chỉ tính payment COMPLETED,
+     * byStatus tính mọi payment tạo trong khoảng.
+     */
+    public record Summary(RollupGranularity granularity,
+                          Map<String, Totals> byStatus,
+                          Totals completed,
+                          Map<String, Totals> completedByPaymentType,
+                          Map<String, Totals> completedByComponentType,
+                          List<SeriesPoint> series) {
+
+        public long totalOrders() {
+            return byStatus.values().stream().mapToLong(Totals::orders).sum();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (paymentRollupRepository.count() == 0 && paymentRepository.count() > 0) {
+            // Lần đầu chạy: bảng tổng hợp chưa có dữ liệu
+            rebuild();
+        }
+    }
+
+    /**
+     * Gọi đồng bộ lúc payment được ghi (trong transaction): đăng ký transaction vào rào rebuild tới khi
+     * delta sau commit đã được cộng xong. Nếu đang rebuild thì chờ rebuild commit, nên payment chưa commit
+     * sẽ không nằm trong kết quả rebuild mà được cộng delta sau đó.
+     */
+    @EventListener
+    public void onPaymentWritten(PaymentChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(fence)) {
+            return;
+        }
+        enterFence();
+        TransactionSynchronizationManager.bindResource(fence, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Chạy sau mọi AFTER_COMMIT listener, kể cả onPaymentChanged
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(fence);
+                leaveFence();
+            }
+        });
+    }
+
+    /**
+     * Trừ trạng thái cũ và cộng trạng thái mới của payment vào mọi granularity
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        try {
+            if (event.getPrevious() != null) {
+                apply(event.getPrevious(), -1);
+            }
+            if (event.getCurrent() != null) {
+                apply(event.getCurrent(), 1);
+            }
+        } catch (Exception e) {
+            // Payment đã commit; lệch sẽ được sửa ở lần build lại tiếp theo
+            log.error("Failed to update payment rollups, they will be fixed by the next rebuild", e);
+        }
+    }
+
+    /**
+     * Thống kê các payment tạo trong [startDate, endDate] (tính cả ngày cuối), đọc từ bảng tổng hợp
+     * với granularity thô nhất phủ vừa khoảng này
+     */
+    @Transactional(readOnly = true)
+    public Summary summarize(LocalDate startDate, LocalDate endDate) {
+        RollupGranularity granularity = granularityFor(startDate, endDate);
+        List<PaymentRollup> rollups = paymentRollupRepository.findBuckets(granularity,
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+
+        Map<String, Totals> byStatus = new HashMap<>();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            byStatus.put(status.name(), Totals.ZERO);
+        }
+        Totals completed = Totals.ZERO;
+        Map<String, Totals> byPaymentType = new TreeMap<>();
+        Map<String, Totals> byComponentType = new TreeMap<>();
+        Map<LocalDateTime, Totals> series = new TreeMap<>();
+
+        for (PaymentRollup rollup : rollups) {
+            Totals totals = Totals.of(rollup);
+            String status = rollup.getId().getStatus();
+            byStatus.merge(status, totals, Totals::plus);
+            if (PaymentStatus.COMPLETED.name().equals(status)) {
+                completed = completed.plus(totals);
+                byPaymentType.merge(rollup.getId().getTypePayment(), totals, Totals::plus);
+                byComponentType.merge(rollup.getId().getComponentType(), totals, Totals::plus);
+                series.merge(rollup.getId().getBucketStart(), totals, Totals::plus);
+            }
+        }
+
+        List<SeriesPoint> points = new ArrayList<>(series.size());
+        series.forEach((bucket, totals) -> points.add(new SeriesPoint(bucket, totals.revenue(), totals.orders())));
+        return new Summary(granularity, byStatus, completed, byPaymentType, byComponentType, points);
+    }
+
+    /**
+     * Xóa và tính lại toàn bộ bảng tổng hợp từ bảng payments (backfill lịch sử / sửa lệch)
+     */
+    @Scheduled(cron = "${app.dashboard.rollup-rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        if (!startRebuild()) {
+            log.warn("Payment rollup rebuild skipped: payment writes did not drain within {} ms",
+                    REBUILD_DRAIN_TIMEOUT_MS);
+            return;
+        }
+        Integer rows;
+        try {
+            rows = rebuildTransaction.execute(status -> {
+                paymentRollupRepository.deleteAllInBatch();
+                int inserted = 0;
+                for (RollupGranularity granularity : RollupGranularity.values()) {
+                    inserted += paymentRollupRepository.rebuildFromPayments(granularity.name(),
+                            BUCKET_FORMATS.get(granularity));
+                }
+                return inserted;
+            });
+        } finally {
+            finishRebuild();
+        }
+        log.info("Payment rollups rebuilt: {} rows in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    // Helper methods
+    private void enterFence() {
+        synchronized (fence) {
+            while (rebuilding) {
+                try {
+                    fence.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for payment rollup rebuild", e);
+                }
+            }
+            paymentWritesInFlight++;
+        }
+    }
+
+    private void leaveFence() {
+        synchronized (fence) {
+            paymentWritesInFlight--;
+            fence.notifyAll();
+        }
+    }
+
+    // Không chặn transaction mới trong lúc chờ: chúng có thể đang giữ khóa dòng mà transaction đang dở cần
+    private boolean startRebuild() {
+        long deadline = System.currentTimeMillis() + REBUILD_DRAIN_TIMEOUT_MS;
+        synchronized (fence) {
+            while (rebuilding || paymentWritesInFlight > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    fence.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            rebuilding = true;
+            return true;
+        }
+    }
+
+    private void finishRebuild() {
+        synchronized (fence) {
+            rebuilding = false;
+            fence.notifyAll();
+        }
+    }
+
+    private void apply(PaymentChangedEvent.State state, int sign) {
+        BigDecimal revenue = state.totalPrice().multiply(BigDecimal.valueOf(sign));
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            paymentRollupRepository.applyDelta(granularity.name(), granularity.bucketOf(state.createdAt()),
+                    state.status(), state.typePayment(), state.componentType(),
+                    revenue, sign, (long) sign * state.quantity());
+        }
+    }
+
+    // Một ngày -> theo giờ; trọn các tháng (tháng cuối có thể là tháng hiện tại) -> theo tháng; còn lại theo ngày
+    private RollupGranularity granularityFor(LocalDate startDate, LocalDate endDate) {
+        if (startDate.equals(endDate)) {
+            return RollupGranularity.HOUR;
+        }
+        boolean endsOnMonthBoundary = endDate.equals(YearMonth.from(endDate).atEndOfMonth())
+                || !endDate.isBefore(LocalDate.now());
+        if (startDate.getDayOfMonth() == 1 && endsOnMonthBoundary
+                && startDate.plusMonths(1).isBefore(endDate)) {
+            return RollupGranularity.MONTH;
+        }
+        return RollupGranularity.DAY;
+    }
+}
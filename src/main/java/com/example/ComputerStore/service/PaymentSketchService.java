@@ -0,0 +1,237 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.PaymentDailySketch;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.event.PaymentChangedEvent;
+import com.example.ComputerStore.repository.PaymentDailySketchRepository;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.util.HyperLogLog;
+import com.example.ComputerStore.util.QuantileSketch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Số liệu xấp xỉ cho dashboard: số người mua phân biệt (HyperLogLog) và phân vị giá trị đơn hàng
+ * (QuantileSketch) của các payment không bị hủy, lưu một sketch cho mỗi ngày trong payment_daily_sketches.
+ * Thay đổi sau commit được gộp vào sketch delta trong bộ nhớ rồi flush định kỳ vào DB; sketch của kỳ
+ * bất kỳ là phép gộp các sketch ngày. Payment bị hủy không gỡ được khỏi HyperLogLog, lần build lại
+ * hằng đêm từ bảng payments sẽ sửa. flush() và rebuild() không chạy chồng nhau; flush ghi lỗi thì delta của
+ * ngày đó được gộp lại vào bộ nhớ cho lần flush sau.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentSketchService {
+
+    private final PaymentDailySketchRepository paymentDailySketchRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Delta chưa flush theo ngày; rebuild() thay map mới ngay trước khi đọc bảng payments và bỏ map cũ
+    private volatile Map<LocalDate, DaySketch> pending = new ConcurrentHashMap<>();
+
+    private static final class DaySketch {
+        private final HyperLogLog buyers;
+        private final QuantileSketch orderValues;
+
+        DaySketch() {
+            this(new HyperLogLog(), new QuantileSketch());
+        }
+
+        DaySketch(HyperLogLog buyers, QuantileSketch orderValues) {
+            this.buyers = buyers;
+            this.orderValues = orderValues;
+        }
+
+        synchronized void add(UUID userId, BigDecimal totalPrice, long delta) {
+            if (delta > 0 && userId != null) {
+                buyers.add(userId);
+            }
+            orderValues.add(totalPrice.doubleValue(), delta);
+        }
+
+        synchronized void mergeInto(HyperLogLog targetBuyers, QuantileSketch targetOrderValues) {
+            targetBuyers.merge(buyers);
+            targetOrderValues.merge(orderValues);
+        }
+
+        synchronized DaySketch mergeFrom(DaySketch other) {
+            other.mergeInto(buyers, orderValues);
+            return this;
+        }
+    }
+
+    public record DayBuyers(LocalDate day, long buyers) {
+    }
+
+    public record Summary(long distinctBuyers, List<DayBuyers> buyersPerDay, long orders,
+                          BigDecimal p50, BigDecimal p90, BigDecimal p99, double relativeAccuracy) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (paymentDailySketchRepository.count() == 0 && paymentRepository.count() > 0) {
+            // Lần đầu chạy: chưa có sketch
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        PaymentChangedEvent.State previous = event.getPrevious();
+        PaymentChangedEvent.State current = event.getCurrent();
+        if (counted(previous)) {
+            addPending(previous, -1);
+        }
+        if (counted(current)) {
+            addPending(current, 1);
+        }
+    }
+
+    /**
+     * Gộp các delta trong bộ nhớ vào sketch ngày trong DB
+     */
+    @Scheduled(initialDelayString = "${app.dashboard.sketch-flush-ms:60000}",
+            fixedDelayString = "${app.dashboard.sketch-flush-ms:60000}")
+    public synchronized void flush() {
+        Map<LocalDate, DaySketch> deltas = pending;
+        if (deltas.isEmpty()) {
+            return;
+        }
+        int failed = 0;
+        for (LocalDate day : new ArrayList<>(deltas.keySet())) {
+            DaySketch delta = deltas.remove(day);
+            if (delta == null) {
+                continue;
+            }
+            // Mỗi ngày một transaction: ngày ghi lỗi (kể cả lúc commit) không kéo theo các ngày đã ghi
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoRow(day, delta));
+            } catch (RuntimeException e) {
+                // Gộp lại vào map vừa lấy ra; nếu rebuild đã thay map thì delta bị bỏ cùng map cũ
+                deltas.merge(day, delta, DaySketch::mergeFrom);
+                failed++;
+                log.warn("Flush payment sketch delta for {} failed, will retry: {}", day, e.getMessage());
+            }
+        }
+        if (failed > 0) {
+            log.warn("Payment sketch flush: {} days kept for the next flush", failed);
+        }
+    }
+
+    /**
+     * Gộp sketch các ngày trong [startDate, endDate] (cả delta chưa flush của node này)
+     */
+    @Transactional(readOnly = true)
+    public Summary summarize(LocalDate startDate, LocalDate endDate) {
+        HyperLogLog buyers = new HyperLogLog();
+        QuantileSketch orderValues = new QuantileSketch();
+        Map<LocalDate, HyperLogLog> buyersByDay = new TreeMap<>();
+
+        for (PaymentDailySketch row : paymentDailySketchRepository.findByDayBetweenOrderByDay(startDate, endDate)) {
+            HyperLogLog dayBuyers = HyperLogLog.fromBytes(row.getBuyers());
+            buyersByDay.put(row.getDay(), dayBuyers);
+            orderValues.merge(QuantileSketch.fromBytes(row.getOrderValues()));
+        }
+        pending.forEach((day, delta) -> {
+            if (!day.isBefore(startDate) && !day.isAfter(endDate)) {
+                delta.mergeInto(buyersByDay.computeIfAbsent(day, d -> new HyperLogLog()), orderValues);
+            }
+        });
+
+        List<DayBuyers> buyersPerDay = new ArrayList<>(buyersByDay.size());
+        buyersByDay.forEach((day, dayBuyers) -> {
+            buyers.merge(dayBuyers);
+            buyersPerDay.add(new DayBuyers(day, dayBuyers.estimate()));
+        });
+
+        return new Summary(buyers.estimate(), buyersPerDay, orderValues.count(),
+                toMoney(orderValues.quantile(0.5)), toMoney(orderValues.quantile(0.9)),
+                toMoney(orderValues.quantile(0.99)), orderValues.getRelativeAccuracy());
+    }
+
+    /**
+     * Build lại toàn bộ sketch ngày từ bảng payments
+     */
+    @Scheduled(cron = "${app.dashboard.sketch-rebuild-cron:0 15 4 * * *}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Integer days;
+        // Thay map ngay trước khi đọc bảng payments: delta cũ đã nằm trong dữ liệu sắp đọc nên bỏ cả map,
+        // thay đổi commit sau đó vào map mới và được flush cộng lên sketch vừa build
+        Map<LocalDate, DaySketch> previous = pending;
+        pending = new ConcurrentHashMap<>();
+        try {
+            days = transactionTemplate.execute(status -> rebuildRows());
+        } catch (RuntimeException e) {
+            // Sketch trong DB giữ nguyên bản cũ: trả lại delta chưa flush của map cũ
+            previous.forEach((day, delta) -> pending.merge(day, delta, DaySketch::mergeFrom));
+            throw e;
+        }
+        log.info("Payment sketches rebuilt: {} days in {} ms", days, System.currentTimeMillis() - start);
+    }
+
+    // Helper methods
+    private void mergeIntoRow(LocalDate day, DaySketch delta) {
+        PaymentDailySketch row = paymentDailySketchRepository.findByDayForUpdate(day)
+                .orElseGet(() -> PaymentDailySketch.builder().day(day).build());
+        HyperLogLog buyers = HyperLogLog.fromBytes(row.getBuyers());
+        QuantileSketch orderValues = QuantileSketch.fromBytes(row.getOrderValues());
+        delta.mergeInto(buyers, orderValues);
+        row.setBuyers(buyers.toBytes());
+        row.setOrderValues(orderValues.toBytes());
+        paymentDailySketchRepository.save(row);
+    }
+
+    private int rebuildRows() {
+        Map<LocalDate, DaySketch> rebuilt = new HashMap<>();
+        // Stream phải đóng trước khi ghi: MySQL không cho chạy câu lệnh khác khi đang stream result set
+        try (Stream<Object[]> rows = paymentRepository.streamForSketches(PaymentStatus.CANCELLED)) {
+            rows.forEach(row -> rebuilt.computeIfAbsent(((LocalDateTime) row[0]).toLocalDate(), day -> new DaySketch())
+                    .add((UUID) row[1], (BigDecimal) row[2], 1));
+        }
+
+        paymentDailySketchRepository.deleteAllInBatch();
+        List<PaymentDailySketch> sketches = new ArrayList<>(rebuilt.size());
+        rebuilt.forEach((day, sketch) -> sketches.add(PaymentDailySketch.builder()
+                .day(day)
+                .buyers(sketch.buyers.toBytes())
+                .orderValues(sketch.orderValues.toBytes())
+                .build()));
+        paymentDailySketchRepository.saveAll(sketches);
+        return sketches.size();
+    }
+
+    private boolean counted(PaymentChangedEvent.State state) {
+        return state != null && !PaymentStatus.CANCELLED.name().equals(state.status());
+    }
+
+    // Cộng trong compute() để không lọt vào delta mà flush() vừa lấy ra khỏi map
+    private void addPending(PaymentChangedEvent.State state, long delta) {
+        pending.compute(state.createdAt().toLocalDate(), (day, sketch) -> {
+            DaySketch target = sketch != null ? sketch : new DaySketch();
+            target.add(state.userId(), state.totalPrice(), delta);
+            return target;
+        });
+    }
+
+    private BigDecimal toMoney(double value) {
+        return BigDecimal.valueOf(value).setScale(0, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.ProductResponseDto;
+import com.example.ComputerStore.dto.response.ProductSnapshot;
+import com.example.ComputerStore.event.CategoryChangedEvent;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.util.BoundedTtlCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache cho các API đọc catalog (chi tiết product, hot sale, theo component type, danh sách).
+ * Giới hạn theo dung lượng ước lượng, mỗi entry có TTL; bị invalidate khi có ProductChangedEvent.
+ */
+@Service
+@Slf4j
+public class ProductCatalogCache {
+
+    // Ước lượng overhead cố định của một ProductResponseDto (object header, BigDecimal, UUID, LocalDateTime...)
+    private static final long PRODUCT_BASE_BYTES = 512;
+
+    private final BoundedTtlCache<UUID, ProductResponseDto> products;
+    private final BoundedTtlCache<String, List<ProductSnapshot>> lists;
+    private final BoundedTtlCache<String, Page<ProductSnapshot>> pages;
+
+    public ProductCatalogCache(@Value("${app.cache.product.max-bytes:33554432}") long maxBytes,
+                               @Value("${app.cache.product.ttl-ms:300000}") long ttlMillis) {
+        // Chia dung lượng: nửa cho chi tiết product, nửa còn lại cho các danh sách
+        this.products = new BoundedTtlCache<>("product", maxBytes / 2, ttlMillis, ProductCatalogCache::weigh);
+        this.lists = new BoundedTtlCache<>("product-list", maxBytes / 4, ttlMillis, ProductCatalogCache::weighAll);
+        this.pages = new BoundedTtlCache<>("product-page", maxBytes / 4, ttlMillis,
+                page -> weighAll(page.getContent()));
+    }
+
+    public ProductResponseDto getProduct(UUID id, Function<UUID, ProductResponseDto> loader) {
+        return products.getOrLoad(id, loader);
+    }
+
+    public List<ProductSnapshot> getList(String key, Supplier<List<ProductSnapshot>> loader) {
+        return lists.getOrLoad(key, k -> List.copyOf(loader.get()));
+    }
+
+    public Page<ProductSnapshot> getPage(String key, Supplier<Page<ProductSnapshot>> loader) {
+        return pages.getOrLoad(key, k -> loader.get());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        UUID productId = event.getProductId();
+        products.invalidate(productId);
+        if (event.getType() == ProductChangedEvent.Type.STOCK_CHANGED
+                || event.getType() == ProductChangedEvent.Type.RATING_CHANGED) {
+            // Tồn kho / rating không đổi thứ tự hay thành phần danh sách, chỉ bỏ các danh sách có chứa product này
+            lists.invalidateIf(snapshots -> containsProduct(snapshots, productId));
+            pages.invalidateIf(page -> containsProduct(page.getContent(), productId));
+            return;
+        }
+        // Một product thay đổi có thể làm thay đổi bất kỳ danh sách nào (giá, discount, thứ tự...)
+        lists.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        UUID categoryId = event.getCategoryId();
+        products.invalidateIf(dto -> categoryId.equals(dto.getCategoryId()));
+        lists.invalidateIf(snapshots -> containsCategory(snapshots, categoryId));
+        pages.invalidateIf(page -> containsCategory(page.getContent(), categoryId));
+    }
+
+    public void invalidateAll() {
+        products.invalidateAll();
+        lists.invalidateAll();
+        pages.invalidateAll();
+        log.info("Product catalog cache cleared");
+    }
+
+    public List<Map<String, Object>> stats() {
+        return List.of(products.stats(), lists.stats(), pages.stats());
+    }
+
+    // Helper methods
+    private static boolean containsProduct(List<ProductSnapshot> snapshots, UUID productId) {
+        for (ProductSnapshot snapshot : snapshots) {
+            if (productId.equals(snapshot.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsCategory(List<ProductSnapshot> snapshots, UUID categoryId) {
+        for (ProductSnapshot snapshot : snapshots) {
+            if (categoryId.equals(snapshot.getCategoryId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long weighAll(List<ProductSnapshot> snapshots) {
+        long total = 64;
+        for (ProductSnapshot snapshot : snapshots) {
+            // Snapshot được giữ chung với ProductSnapshotStore, chỉ tính phần JSON
+            total += PRODUCT_BASE_BYTES + snapshot.getJsonLength();
+        }
+        return total;
+    }
+
+    private static long weigh(ProductResponseDto dto) {
+        long chars = length(dto.getName()) + length(dto.getDescription()) + length(dto.getCategoryName())
+                + length(dto.getCpu()) + length(dto.getMain()) + length(dto.getRam())
+                + length(dto.getStorage()) + length(dto.getGpu()) + length(dto.getPower())
+                + length(dto.getCaseComputer()) + length(dto.getCoolers());
+        if (dto.getImages() != null) {
+            for (String image : dto.getImages()) {
+                chars += length(image);
+            }
+        }
+        // Java String dùng ~1-2 byte / ký tự, lấy 2 cho an toàn
+        return PRODUCT_BASE_BYTES + chars * 2;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.FacetedSearchResponseDto.FacetCountDto;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index dạng cột (mỗi thuộc tính một mảng) của các field dùng để lọc / đếm facet trên trang category.
+ * Một lần duyệt tính được cả danh sách kết quả lẫn số lượng theo component type, khoảng giá,
+ * tồn kho và mức giảm giá, không cần query DB cho sidebar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+    // Khoảng giá (VND) cho histogram, phần tử cuối không có giới hạn trên
+    private static final long[] PRICE_BOUNDS = {0L, 5_000_000L, 10_000_000L, 15_000_000L, 20_000_000L,
+            30_000_000L, 50_000_000L};
+
+    // Mức giảm giá (%): 0, 1-9, 10-19, 20-29, 30+
+    private static final int[] DISCOUNT_BOUNDS = {0, 1, 10, 20, 30};
+
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+
+    private final ProductRepository productRepository;
+
+    // Dữ liệu nguồn theo product, columns được build lại từ đây khi có thay đổi
+    private final Map<UUID, Row> rows = new ConcurrentHashMap<>();
+
+    // Thay đổi nhận được trong lúc reload đang đọc DB, phát lại lên dữ liệu mới khi thay thế; null khi không reload.
+    // Được bảo vệ bởi monitor của index, cùng với rows và columns
+    private List<ProductChangedEvent> changesDuringReload;
+
+    // Chỉ một lần reload chạy tại một thời điểm; không giữ monitor của index trong lúc đọc DB
+    private final Object reloadLock = new Object();
+
+    private volatile Columns columns = Columns.EMPTY;
+    private volatile boolean dirty = true;
+    private volatile boolean ready = false;
+
+    public enum Sort {
+        RELEVANCE, NEWEST, PRICE_ASC, PRICE_DESC, NAME_ASC, NAME_DESC
+    }
+
+    public record Query(UUID categoryId, List<UUID> keywordHits, ComponentType componentType,
+                        BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, Integer discountTier,
+                        Sort sort) {
+    }
+
+    public record Result(List<UUID> matchedIds, List<FacetCountDto> componentTypes,
+                         List<FacetCountDto> priceRanges, List<FacetCountDto> stock,
+                         List<FacetCountDto> discountTiers) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Scheduled(initialDelayString = "${app.search.index-refresh-ms:600000}",
+            fixedDelayString = "${app.search.index-refresh-ms:600000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Load lại toàn bộ dữ liệu từ DB. Các thay đổi (kể cả tồn kho) đến trong lúc đọc DB được phát lại
+     * lên dữ liệu mới khi thay thế, nên product vừa sửa / xóa không bị dữ liệu cũ ghi đè
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            setChangesDuringReload(new ArrayList<>());
+            Map<UUID, Row> fresh = new HashMap<>();
+            try {
+                for (Product product : productRepository.findAll()) {
+                    fresh.put(product.getId(), Row.of(product));
+                }
+            } catch (RuntimeException e) {
+                setChangesDuringReload(null);
+                throw e;
+            }
+            synchronized (this) {
+                rows.keySet().retainAll(fresh.keySet());
+                rows.putAll(fresh);
+                changesDuringReload.forEach(this::applyLocked);
+                changesDuringReload = null;
+                dirty = true;
+                ready = true;
+            }
+            log.info("Product facet index loaded: {} products", fresh.size());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.RATING_CHANGED) {
+            return;
+        }
+        if (changesDuringReload != null) {
+            changesDuringReload.add(event);
+        }
+        applyLocked(event);
+        if (event.getType() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            // Chỉ ghi đè ô tồn kho trong columns hiện tại, không build lại toàn bộ
+            Integer index = columns.indexById.get(event.getProductId());
+            if (index != null) {
+                columns.stocks[index] = event.getStock();
+            }
+        } else {
+            // Build lại columns lười ở lần đọc tiếp theo, gom được nhiều thay đổi liên tiếp
+            dirty = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Lọc + đếm facet trong một lần duyệt. Số lượng của mỗi facet được tính với mọi bộ lọc
+     * trừ bộ lọc của chính facet đó, để sidebar hiển thị được số lượng khi đổi lựa chọn.
+     */
+    public Result search(Query query) {
+        Columns cols = currentColumns();
+        Set<UUID> keywordHits = query.keywordHits() != null ? new HashSet<>(query.keywordHits()) : null;
+        long minCents = query.minPrice() != null ? toCents(query.minPrice()) : Long.MIN_VALUE;
+        long maxCents = query.maxPrice() != null ? toCents(query.maxPrice()) : Long.MAX_VALUE;
+        int wantedType = query.componentType() != null ? query.componentType().ordinal() : -1;
+
+        long[] typeCounts = new long[COMPONENT_TYPES.length];
+        long[] priceCounts = new long[PRICE_BOUNDS.length];
+        long[] discountCounts = new long[DISCOUNT_BOUNDS.length];
+        long inStockCount = 0;
+        long outOfStockCount = 0;
+        int[] matched = new int[cols.size];
+        int matchedCount = 0;
+
+        for (int i = 0; i < cols.size; i++) {
+            // Bộ lọc gốc (category, từ khóa) không có facet riêng
+            if (query.categoryId() != null && !query.categoryId().equals(cols.categoryIds[i])) {
+                continue;
+            }
+            if (keywordHits != null && !keywordHits.contains(cols.ids[i])) {
+                continue;
+            }
+
+            boolean typeOk = wantedType < 0 || cols.componentTypes[i] == wantedType;
+            boolean priceOk = cols.finalPriceCents[i] >= minCents && cols.finalPriceCents[i] <= maxCents;
+            boolean stockOk = query.inStock() == null || (cols.stocks[i] > 0) == query.inStock();
+            boolean discountOk = query.discountTier() == null || cols.discountTiers[i] == query.discountTier();
+            int failed = (typeOk ? 0 : 1) + (priceOk ? 0 : 1) + (stockOk ? 0 : 1) + (discountOk ? 0 : 1);
+            if (failed > 1) {
+                continue;
+            }
+
+            if (failed == 0) {
+                matched[matchedCount++] = i;
+            }
+            if (priceOk && stockOk && discountOk) {
+                typeCounts[cols.componentTypes[i]]++;
+            }
+            if (typeOk && stockOk && discountOk) {
+                priceCounts[priceBucketOf(cols.finalPriceCents[i])]++;
+            }
+            if (typeOk && priceOk && discountOk) {
+                if (cols.stocks[i] > 0) {
+                    inStockCount++;
+                } else {
+                    outOfStockCount++;
+                }
+            }
+            if (typeOk && priceOk && stockOk) {
+                discountCounts[cols.discountTiers[i]]++;
+            }
+        }
+
+        return new Result(
+                sortedIds(cols, Arrays.copyOf(matched, matchedCount), query),
+                componentTypeFacets(typeCounts),
+                rangeFacets(priceCounts, PRICE_BOUNDS),
+                List.of(FacetCountDto.builder().key("in-stock").count(inStockCount).build(),
+                        FacetCountDto.builder().key("out-of-stock").count(outOfStockCount).build()),
+                discountFacets(discountCounts));
+    }
+
+    // Helper methods
+    private synchronized void setChangesDuringReload(List<ProductChangedEvent> changes) {
+        changesDuringReload = changes;
+    }
+
+    // Cập nhật rows theo event; tồn kho mới đi kèm event, không load lại product
+    // (entity trong persistence context có thể còn stock cũ). Gọi khi đang giữ monitor của index
+    private void applyLocked(ProductChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> rows.put(event.getProductId(), Row.of(event.getProduct()));
+            case DELETED -> rows.remove(event.getProductId());
+            case STOCK_CHANGED -> rows.computeIfPresent(event.getProductId(), (id, row) -> row.withStock(event.getStock()));
+            default -> {
+                // Rating không nằm trong index
+            }
+        }
+    }
+
+    private Columns currentColumns() {
+        if (dirty) {
+            synchronized (this) {
+                if (dirty) {
+                    dirty = false;
+                    columns = Columns.of(new ArrayList<>(rows.values()));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private List<UUID> sortedIds(Columns cols, int[] matchedRows, Query query) {
+        Map<UUID, Integer> rank = null;
+        Sort sort = query.sort() != null ? query.sort() : Sort.NEWEST;
+        if (sort == Sort.RELEVANCE && query.keywordHits() != null) {
+            rank = new HashMap<>(query.keywordHits().size() * 2);
+            for (int i = 0; i < query.keywordHits().size(); i++) {
+                rank.put(query.keywordHits().get(i), i);
+            }
+        } else if (sort == Sort.RELEVANCE) {
+            sort = Sort.NEWEST;
+        }
+
+        // Cùng tiebreaker id DESC với các query phân trang trong DB
+        Comparator<Integer> byIdDesc = (a, b) -> cols.ids[b].compareTo(cols.ids[a]);
+        Map<UUID, Integer> relevance = rank;
+        Comparator<Integer> comparator = switch (sort) {
+            case PRICE_ASC -> Comparator.<Integer>comparingLong(i -> cols.finalPriceCents[i]);
+            case PRICE_DESC -> Comparator.<Integer>comparingLong(i -> cols.finalPriceCents[i]).reversed();
+            case NAME_ASC -> Comparator.comparing(i -> cols.names[i], String.CASE_INSENSITIVE_ORDER);
+            case NAME_DESC -> Comparator.<Integer, String>comparing(i -> cols.names[i], String.CASE_INSENSITIVE_ORDER)
+                    .reversed();
+            case RELEVANCE -> Comparator.comparingInt(i -> relevance.get(cols.ids[i]));
+            default -> Comparator.<Integer>comparingLong(i -> cols.createdAt[i]).reversed();
+        };
+
+        return Arrays.stream(matchedRows).boxed()
+                .sorted(comparator.thenComparing(byIdDesc))
+                .map(i -> cols.ids[i])
+                .toList();
+    }
+
+    private List<FacetCountDto> componentTypeFacets(long[] counts) {
+        List<FacetCountDto> facets = new ArrayList<>();
+        for (ComponentType type : COMPONENT_TYPES) {
+            if (counts[type.ordinal()] > 0) {
+                facets.add(FacetCountDto.builder().key(type.name()).count(counts[type.ordinal()]).build());
+            }
+        }
+        return facets;
+    }
+
+    private List<FacetCountDto> rangeFacets(long[] counts, long[] bounds) {
+        List<FacetCountDto> facets = new ArrayList<>(bounds.length);
+        for (int b = 0; b < bounds.length; b++) {
+            Long upper = b + 1 < bounds.length ? bounds[b + 1] : null;
+            facets.add(FacetCountDto.builder()
+                    .key(bounds[b] + "-" + (upper != null ? upper : ""))
+                    .from(BigDecimal.valueOf(bounds[b]))
+                    .to(upper != null ? BigDecimal.valueOf(upper) : null)
+                    .count(counts[b])
+                    .build());
+        }
+        return facets;
+    }
+
+    private List<FacetCountDto> discountFacets(long[] counts) {
+        List<FacetCountDto> facets = new ArrayList<>(DISCOUNT_BOUNDS.length);
+        for (int t = 0; t < DISCOUNT_BOUNDS.length; t++) {
+            Integer upper = t + 1 < DISCOUNT_BOUNDS.length ? DISCOUNT_BOUNDS[t + 1] : null;
+            facets.add(FacetCountDto.builder()
+                    .key(String.valueOf(t))
+                    .from(BigDecimal.valueOf(DISCOUNT_BOUNDS[t]))
+                    .to(upper != null ? BigDecimal.valueOf(upper) : null)
+                    .count(counts[t])
+                    .build());
+        }
+        return facets;
+    }
+
+    private static int priceBucketOf(long cents) {
+        long vnd = cents / 100;
+        for (int b = PRICE_BOUNDS.length - 1; b > 0; b--) {
+            if (vnd >= PRICE_BOUNDS[b]) {
+                return b;
+            }
+        }
+        return 0;
+    }
+
+    static int discountTierOf(BigDecimal discount) {
+        int percent = discount != null ? discount.intValue() : 0;
+        for (int t = DISCOUNT_BOUNDS.length - 1; t > 0; t--) {
+            if (percent >= DISCOUNT_BOUNDS[t]) {
+                return t;
+            }
+        }
+        return 0;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    private record Row(UUID id, UUID categoryId, ComponentType componentType, long finalPriceCents,
+                       int stock, int discountTier, long createdAt, String name) {
+
+        static Row of(Product product) {
+            BigDecimal finalPrice = product.getFinalPrice() != null
+                    ? product.getFinalPrice()
+                    : Product.calculateFinalPrice(product.getPrice(), product.getDiscount());
+            return new Row(product.getId(), product.getCategory().getId(), product.getComponentType(),
+                    toCents(finalPrice), product.getStock() != null ? product.getStock() : 0,
+                    discountTierOf(product.getDiscount()),
+                    product.getCreatedAt() != null ? product.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : 0,
+                    product.getName() != null ? product.getName() : "");
+        }
+
+        Row withStock(int newStock) {
+            return new Row(id, categoryId, componentType, finalPriceCents, newStock, discountTier, createdAt, name);
+        }
+    }
+
+    /**
+     * Snapshot dạng cột, thay thế nguyên khối khi product được thêm / sửa / xóa nên đọc không cần lock.
+     * Riêng tồn kho được ghi đè tại chỗ theo indexById
+     */
+    private static final class Columns {
+
+        static final Columns EMPTY = of(List.of());
+
+        final int size;
+        final UUID[] ids;
+        final UUID[] categoryIds;
+        final byte[] componentTypes;
+        final long[] finalPriceCents;
+        final int[] stocks;
+        final byte[] discountTiers;
+        final long[] createdAt;
+        final String[] names;
+        final Map<UUID, Integer> indexById;
+
+        private Columns(int size) {
+            this.size = size;
+            this.ids = new UUID[size];
+            this.categoryIds = new UUID[size];
+            this.componentTypes = new byte[size];
+            this.finalPriceCents = new long[size];
+            this.stocks = new int[size];
+            this.discountTiers = new byte[size];
+            this.createdAt = new long[size];
+            this.names = new String[size];
+            this.indexById = new HashMap<>(size * 2);
+        }
+
+        static Columns of(List<Row> rows) {
+            Columns cols = new Columns(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                cols.ids[i] = row.id();
+                cols.categoryIds[i] = row.categoryId();
+                cols.componentTypes[i] = (byte) row.componentType().ordinal();
+                cols.finalPriceCents[i] = row.finalPriceCents();
+                cols.stocks[i] = row.stock();
+                cols.discountTiers[i] = (byte) row.discountTier();
+                cols.createdAt[i] = row.createdAt();
+                cols.names[i] = row.name();
+                cols.indexById.put(row.id(), i);
+            }
+            return cols;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.request.CreateProductPreviewDto;
+import com.example.ComputerStore.dto.response.ProductPreviewResponseDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.UUID;
+
+public interface ProductPreviewService {
+
+    /**
+     * User đánh giá sản phẩm (mỗi user một đánh giá / sản phẩm)
+     */
+    ProductPreviewResponseDto createPreview(UUID userId, CreateProductPreviewDto createProductPreviewDto);
+
+    /**
+     * Xóa đánh giá của user
+     */
+    void deletePreview(UUID userId, UUID previewId);
+
+    /**
+     * Lấy danh sách đánh giá của sản phẩm (mới nhất trước)
+     */
+    Page<ProductPreviewResponseDto> getPreviewsByProduct(UUID productId, Pageable pageable);
+}
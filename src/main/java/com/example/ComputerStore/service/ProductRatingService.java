@@ -0,0 +1,258 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.ProductRatingStats;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.ProductPreviewRepository;
+import com.example.ComputerStore.repository.ProductRatingStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Giữ tổng hợp rating của mọi product trong bộ nhớ để DTO product có averageRating / totalReviews
+ * mà không cần query thêm. Bảng product_rating_stats được cập nhật dần khi thêm / xóa review
+ * và được đối soát lại với product_previews theo lịch: chỉ các product lệch số liệu được tính lại,
+ * mỗi product trong một transaction riêng có khóa dòng tổng hợp nên không làm mất các review ghi đồng thời.
+ * Bản trong bộ nhớ được load lại định kỳ từ bảng tổng hợp (thấy được review ghi trên node khác và kết quả
+ * đối soát); product có số liệu đổi được báo bằng RATING_CHANGED để snapshot / cache build lại.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRatingService {
+
+    private final ProductRatingStatsRepository productRatingStatsRepository;
+    private final ProductPreviewRepository productPreviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, RatingSummary> summaries = new ConcurrentHashMap<>();
+
+    // Product có rating đổi trong lúc reload đang đọc DB, được đọc lại sau khi thay thế; null khi không reload.
+    // summaries và danh sách này được ghi dưới monitor của service
+    private Set<UUID> changesDuringReload;
+
+    // Chỉ một lần reload chạy tại một thời điểm; không giữ monitor của service trong lúc đọc DB
+    private final Object reloadLock = new Object();
+
+    // Lần load đầu không báo thay đổi (chưa có snapshot / cache nào dùng số liệu rating)
+    private volatile boolean loaded;
+
+    public record RatingSummary(long count, long sum, List<Long> histogram) {
+
+        public static final RatingSummary EMPTY = new RatingSummary(0, 0, List.of(0L, 0L, 0L, 0L, 0L));
+
+        public double average() {
+            return count == 0 ? 0.0 : Math.round((double) sum / count * 10) / 10.0;
+        }
+
+        static RatingSummary of(ProductRatingStats stats) {
+            return new RatingSummary(stats.getRatingCount(), stats.getRatingSum(),
+                    List.of(stats.getStar1(), stats.getStar2(), stats.getStar3(), stats.getStar4(), stats.getStar5()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (productRatingStatsRepository.count() == 0 && productPreviewRepository.count() > 0) {
+            // Lần đầu chạy: bảng tổng hợp chưa có dữ liệu
+            reconcile();
+        }
+        reload();
+    }
+
+    // Load lại định kỳ để thấy review ghi trên node khác
+    @Scheduled(initialDelayString = "${app.rating.reload-ms:60000}",
+            fixedDelayString = "${app.rating.reload-ms:60000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    public RatingSummary getSummary(UUID productId) {
+        return summaries.getOrDefault(productId, RatingSummary.EMPTY);
+    }
+
+    /**
+     * Cộng / trừ một review vào bảng tổng hợp, phải được gọi trong transaction thêm / xóa review
+     */
+    @Transactional
+    public void applyRating(UUID productId, int rating, int delta) {
+        productRatingStatsRepository.applyRating(productId, rating, delta);
+    }
+
+    /**
+     * Xóa tổng hợp rating của product, phải được gọi trong transaction xóa product
+     */
+    @Transactional
+    public void deleteStats(UUID productId) {
+        productRatingStatsRepository.deleteById(productId);
+    }
+
+    // Chạy trước các listener khác (snapshot, cache) để chúng build lại với số liệu mới
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.RATING_CHANGED
+                || event.getType() == ProductChangedEvent.Type.DELETED) {
+            refresh(event.getProductId());
+        }
+    }
+
+    /**
+     * Đối soát bảng tổng hợp với product_previews (sửa lệch nếu có ghi ngoài luồng service).
+     * Lần đọc đầu không khóa chỉ để tìm product lệch; mỗi product lệch được đếm lại và ghi đè trong transaction riêng
+     */
+    @Scheduled(cron = "${app.rating.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        Map<UUID, RatingSummary> counted = summarize(productPreviewRepository.countRatingsGroupedByProduct());
+        Set<UUID> suspects = new HashSet<>();
+        for (ProductRatingStats stats : productRatingStatsRepository.findAll()) {
+            if (!RatingSummary.of(stats).equals(counted.getOrDefault(stats.getProductId(), RatingSummary.EMPTY))) {
+                suspects.add(stats.getProductId());
+            }
+            counted.remove(stats.getProductId());
+        }
+        // Product có review nhưng chưa có dòng tổng hợp
+        suspects.addAll(counted.keySet());
+
+        int fixed = 0;
+        for (UUID productId : suspects) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcileProduct(productId)))) {
+                refresh(productId);
+                fixed++;
+            }
+        }
+        log.info("Product rating stats reconciled: {} products checked again, {} out of sync, in {} ms",
+                suspects.size(), fixed, System.currentTimeMillis() - start);
+    }
+
+    // Helper methods
+    // Khóa dòng tổng hợp trước rồi mới đếm review: applyRating của review ghi đồng thời phải chờ transaction này
+    // và được cộng lên kết quả sau khi commit, thay vì bị ghi đè
+    private boolean reconcileProduct(UUID productId) {
+        Optional<ProductRatingStats> current = productRatingStatsRepository.findForUpdate(productId);
+        RatingSummary counted = summarize(productPreviewRepository.countRatingsByProductId(productId))
+                .getOrDefault(productId, RatingSummary.EMPTY);
+        if (counted.equals(current.map(RatingSummary::of).orElse(RatingSummary.EMPTY))) {
+            return false;
+        }
+
+        if (counted.count() == 0) {
+            current.ifPresent(productRatingStatsRepository::delete);
+        } else {
+            ProductRatingStats stats = current.orElseGet(() -> ProductRatingStats.builder().productId(productId).build());
+            stats.setRatingCount(counted.count());
+            stats.setRatingSum(counted.sum());
+            stats.setStar1(counted.histogram().get(0));
+            stats.setStar2(counted.histogram().get(1));
+            stats.setStar3(counted.histogram().get(2));
+            stats.setStar4(counted.histogram().get(3));
+            stats.setStar5(counted.histogram().get(4));
+            productRatingStatsRepository.save(stats);
+        }
+        // Snapshot / cache của product được build lại sau khi commit
+        eventPublisher.publishEvent(ProductChangedEvent.ratingChanged(productId));
+        return true;
+    }
+
+    // Gộp các dòng (productId, rating, count) thành tổng hợp theo product
+    private Map<UUID, RatingSummary> summarize(List<Object[]> rows) {
+        Map<UUID, long[]> histograms = new HashMap<>();
+        for (Object[] row : rows) {
+            UUID productId = (UUID) row[0];
+            int rating = ((Number) row[1]).intValue();
+            long count = ((Number) row[2]).longValue();
+            if (rating < 1 || rating > 5) {
+                log.warn("Ignoring out of range rating {} for product {}", rating, productId);
+                continue;
+            }
+            histograms.computeIfAbsent(productId, id -> new long[5])[rating - 1] += count;
+        }
+        Map<UUID, RatingSummary> result = new HashMap<>();
+        histograms.forEach((productId, histogram) -> {
+            long count = 0;
+            long sum = 0;
+            for (int star = 1; star <= 5; star++) {
+                count += histogram[star - 1];
+                sum += histogram[star - 1] * star;
+            }
+            result.put(productId, new RatingSummary(count, sum,
+                    List.of(histogram[0], histogram[1], histogram[2], histogram[3], histogram[4])));
+        });
+        return result;
+    }
+
+    // Đọc lại tổng hợp của một product từ DB vào bộ nhớ
+    private void refresh(UUID productId) {
+        Optional<ProductRatingStats> stats = productRatingStatsRepository.findById(productId);
+        synchronized (this) {
+            if (changesDuringReload != null) {
+                changesDuringReload.add(productId);
+            }
+            stats.ifPresentOrElse(found -> summaries.put(productId, RatingSummary.of(found)),
+                    () -> summaries.remove(productId));
+        }
+    }
+
+    private synchronized void setChangesDuringReload(Set<UUID> changes) {
+        changesDuringReload = changes;
+    }
+
+    private void reload() {
+        synchronized (reloadLock) {
+            setChangesDuringReload(new HashSet<>());
+            Map<UUID, RatingSummary> fresh = new HashMap<>();
+            try {
+                for (ProductRatingStats stats : productRatingStatsRepository.findAll()) {
+                    fresh.put(stats.getProductId(), RatingSummary.of(stats));
+                }
+            } catch (RuntimeException e) {
+                setChangesDuringReload(null);
+                throw e;
+            }
+
+            Set<UUID> changed = new HashSet<>();
+            Set<UUID> replay;
+            synchronized (this) {
+                for (UUID productId : summaries.keySet()) {
+                    if (!fresh.containsKey(productId)) {
+                        changed.add(productId);
+                    }
+                }
+                fresh.forEach((productId, summary) -> {
+                    if (!summary.equals(summaries.get(productId))) {
+                        changed.add(productId);
+                    }
+                });
+                summaries.keySet().retainAll(fresh.keySet());
+                summaries.putAll(fresh);
+                replay = changesDuringReload;
+                changesDuringReload = null;
+            }
+            // Product đổi trong lúc đọc DB: số liệu vừa đọc có thể cũ hơn bản listener đã ghi, đọc lại
+            replay.forEach(this::refresh);
+            changed.removeAll(replay);
+
+            if (loaded) {
+                // Snapshot không so rating khi kiểm tra cũ, báo để snapshot / cache của product đó build lại
+                changed.forEach(productId -> eventPublisher.publishEvent(ProductChangedEvent.ratingChanged(productId)));
+            }
+            loaded = true;
+            log.info("Loaded rating stats for {} products, {} changed", fresh.size(), changed.size());
+        }
+    }
+}
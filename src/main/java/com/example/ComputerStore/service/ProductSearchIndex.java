@@ -0,0 +1,250 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index trong bộ nhớ cho tìm kiếm sản phẩm theo từ khóa.
+ * Index name, description và các thông số PC; được cập nhật theo ProductChangedEvent
+ * và rebuild định kỳ từ DB để đồng bộ giữa các node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SPLITTER = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    // Trọng số theo field: khớp ở tên quan trọng hơn khớp ở thông số, thông số hơn mô tả
+    private static final int NAME_WEIGHT = 5;
+    private static final int SPEC_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> weighted term frequency)
+    private NavigableMap<String, Map<UUID, Integer>> postings = new TreeMap<>();
+
+    // productId -> (term -> weighted term frequency), dùng để gỡ postings khi update / delete
+    private Map<UUID, Map<String, Integer>> documents = new HashMap<>();
+
+    // Thay đổi nhận được trong lúc rebuild đang đọc DB, phát lại lên index mới khi thay thế; null khi không rebuild
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.search.index-refresh-ms:600000}",
+            fixedDelayString = "${app.search.index-refresh-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Build lại toàn bộ index từ DB rồi thay thế index hiện tại. Các thay đổi đến trong lúc build
+     * được phát lại lên index mới, nên không bị mất dù DB được đọc trước khi thay thế
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        setChangesDuringRebuild(new ArrayList<>());
+        NavigableMap<String, Map<UUID, Integer>> newPostings = new TreeMap<>();
+        Map<UUID, Map<String, Integer>> newDocuments;
+        try {
+            List<Product> products = productRepository.findAll();
+            newDocuments = new HashMap<>(products.size() * 2);
+            for (Product product : products) {
+                Map<String, Integer> terms = analyze(product);
+                newDocuments.put(product.getId(), terms);
+                addPostings(newPostings, product.getId(), terms);
+            }
+        } catch (RuntimeException e) {
+            setChangesDuringRebuild(null);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+            changesDuringRebuild.forEach(this::applyLocked);
+            changesDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index rebuilt: {} products, {} terms in {} ms",
+                newDocuments.size(), newPostings.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.Type.CREATED && event.getType() != ProductChangedEvent.Type.UPDATED
+                && event.getType() != ProductChangedEvent.Type.DELETED) {
+            // Tồn kho / rating không ảnh hưởng tới nội dung được index
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            applyLocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Tìm product theo từ khóa, trả về danh sách ID đã xếp hạng theo độ liên quan.
+     * Mọi từ trong query đều phải khớp; từ cuối cùng được khớp theo prefix (đang gõ dở).
+     */
+    public List<UUID> search(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<UUID, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                Map<UUID, Double> tokenScores = scoreToken(tokens.get(i), i == tokens.size() - 1);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed())
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Helper methods
+    private void setChangesDuringRebuild(List<ProductChangedEvent> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(ProductChangedEvent event) {
+        removePostings(event.getProductId());
+        if (event.getType() != ProductChangedEvent.Type.DELETED) {
+            Map<String, Integer> terms = analyze(event.getProduct());
+            documents.put(event.getProductId(), terms);
+            addPostings(postings, event.getProductId(), terms);
+        }
+    }
+
+    private Map<UUID, Double> scoreToken(String token, boolean prefix) {
+        Map<String, Map<UUID, Integer>> matches = prefix
+                ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                : (postings.containsKey(token) ? Map.of(token, postings.get(token)) : Map.of());
+
+        int totalDocs = Math.max(documents.size(), 1);
+        Map<UUID, Double> scores = new HashMap<>();
+        matches.forEach((term, docs) -> {
+            double idf = Math.log(1 + (double) totalDocs / docs.size());
+            // Khớp trọn từ được ưu tiên hơn khớp prefix
+            double boost = term.equals(token) ? 1.0 : 0.5;
+            docs.forEach((productId, tf) -> scores.merge(productId, tf * idf * boost, Double::sum));
+        });
+        return scores;
+    }
+
+    private void addPostings(NavigableMap<String, Map<UUID, Integer>> target, UUID productId,
+                             Map<String, Integer> terms) {
+        terms.forEach((term, tf) -> target.computeIfAbsent(term, k -> new HashMap<>()).put(productId, tf));
+    }
+
+    private void removePostings(UUID productId) {
+        Map<String, Integer> previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            Map<UUID, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private Map<String, Integer> analyze(Product product) {
+        Map<String, Integer> terms = new HashMap<>();
+        addField(terms, product.getName(), NAME_WEIGHT);
+        addField(terms, product.getCpu(), SPEC_WEIGHT);
+        addField(terms, product.getMain(), SPEC_WEIGHT);
+        addField(terms, product.getRam(), SPEC_WEIGHT);
+        addField(terms, product.getStorage(), SPEC_WEIGHT);
+        addField(terms, product.getGpu(), SPEC_WEIGHT);
+        addField(terms, product.getPower(), SPEC_WEIGHT);
+        addField(terms, product.getCaseComputer(), SPEC_WEIGHT);
+        addField(terms, product.getCoolers(), SPEC_WEIGHT);
+        if (product.getDescription() != null) {
+            addField(terms, HTML_TAG.matcher(product.getDescription()).replaceAll(" "), DESCRIPTION_WEIGHT);
+        }
+        return terms;
+    }
+
+    private void addField(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    // Bỏ dấu cả khi index lẫn khi query: "tan nhiet" khớp "tản nhiệt" và ngược lại
+    private List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SPLITTER.split(TextNormalizer.fold(text))) {
+            if (!token.isEmpty() && token.length() <= MAX_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -2,7 +2,11 @@ package com.example.ComputerStore.service;
 
 import com.example.ComputerStore.dto.request.CreateProductDto;
 import com.example.ComputerStore.dto.request.UpdateProductDto;
+import com.example.ComputerStore.dto.response.CursorPageResponseDto;
+import com.example.ComputerStore.dto.response.FacetedSearchResponseDto;
 import com.example.ComputerStore.dto.response.ProductResponseDto;
+import com.example.ComputerStore.dto.response.ProductSnapshot;
+import com.example.ComputerStore.dto.response.SuggestionDto;
 import com.example.ComputerStore.enumeric.ComponentType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,12 +25,17 @@ public interface ProductService {
     /**
      * Get all products with pagination
      */
-    Page<ProductResponseDto> getAllProducts(Pageable pageable);
+    Page<ProductSnapshot> getAllProducts(Pageable pageable);
     
     /**
      * Get all products without pagination (for compatibility with frontend)
      */
-    List<ProductResponseDto> getAllProducts();
+    List<ProductSnapshot> getAllProducts();
+    
+    /**
+     * Get products with keyset (cursor) pagination on (createdAt, id) for infinite scroll
+     */
+    CursorPageResponseDto<ProductSnapshot> getProductsByCursor(String cursor, int size);
     
     /**
      * Get product by ID
@@ -51,46 +60,69 @@ public interface ProductService {
     /**
      * Get products by component type
      */
-    List<ProductResponseDto> getProductsByComponentType(ComponentType componentType);
+    List<ProductSnapshot> getProductsByComponentType(ComponentType componentType);
     
     /**
-     * Get products by category ID with filters
+     * Get products by category ID with filters (paged, sorted in DB)
      */
-    List<ProductResponseDto> getProductsByCategory(
+    Page<ProductSnapshot> getProductsByCategory(
             UUID categoryId, 
             String search, 
             BigDecimal minPrice, 
             BigDecimal maxPrice, 
             String sort,
-            List<UUID> productIds
+            List<UUID> productIds,
+            Pageable pageable
     );
     
     /**
      * Get hot sale products (discount > 20%)
      */
-    List<ProductResponseDto> getHotSaleProducts();
+    List<ProductSnapshot> getHotSaleProducts();
     
     /**
-     * Search products with filters
+     * Search products with filters (paged, sorted in DB)
      */
-    List<ProductResponseDto> searchProducts(
+    Page<ProductSnapshot> searchProducts(
             String search, 
             BigDecimal minPrice, 
             BigDecimal maxPrice, 
             String sort,
-            List<UUID> productIds
+            List<UUID> productIds,
+            Pageable pageable
     );
     
     /**
-     * Search products by category with filters
+     * Search products by category with filters (paged, sorted in DB)
      */
-    List<ProductResponseDto> searchProductsByCategory(
+    Page<ProductSnapshot> searchProductsByCategory(
             UUID categoryId,
             String search, 
             BigDecimal minPrice, 
             BigDecimal maxPrice, 
             String sort,
             List<UUID> productIds,
-            ComponentType componentType
+            ComponentType componentType,
+            Pageable pageable
+    );
+    
+    /**
+     * Search products in a category with facet counts (component type, price range, stock, discount tier)
+     */
+    FacetedSearchResponseDto searchProductsWithFacets(
+            UUID categoryId,
+            String search,
+            ComponentType componentType,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Boolean inStock,
+            Integer discountTier,
+            String sort,
+            Pageable pageable
     );
-}
\ No newline at end of file
+    
+    /**
+     * Autocomplete suggestions (product names and spec keywords) for a typed prefix
+     */
+    List<SuggestionDto> suggestProducts(String query, int limit);
+}
@@ -0,0 +1,131 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.ProductResponseDto;
+import com.example.ComputerStore.dto.response.ProductSnapshot;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.event.CategoryChangedEvent;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Giữ snapshot (DTO + JSON bytes) cho từng product, chỉ build lại khi product hoặc rating của nó thay đổi.
+ * Các API danh sách trả về snapshot nên không phải convert entity và serialize lại mỗi request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSnapshotStore {
+
+    private final ObjectMapper objectMapper;
+    private final ProductRatingService productRatingService;
+
+    private final Map<UUID, ProductSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Lấy snapshot của product, build lại nếu chưa có hoặc đã cũ so với entity
+     */
+    public ProductSnapshot snapshotOf(Product product) {
+        ProductSnapshot snapshot = snapshots.get(product.getId());
+        if (snapshot == null || snapshot.isStale(product.getUpdatedAt(), product.getStock())) {
+            snapshot = build(product);
+            snapshots.put(product.getId(), snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Snapshot đang có của product (không build), rỗng nếu chưa có hoặc đã bị bỏ sau khi product thay đổi
+     */
+    public Optional<ProductSnapshot> find(UUID productId) {
+        return Optional.ofNullable(snapshots.get(productId));
+    }
+
+    public List<ProductSnapshot> snapshotsOf(List<Product> products) {
+        return products.stream().map(this::snapshotOf).toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.CREATED || event.getType() == ProductChangedEvent.Type.UPDATED) {
+            snapshots.put(event.getProductId(), build(event.getProduct()));
+        } else {
+            snapshots.remove(event.getProductId());
+        }
+    }
+
+    // Tên category được ghi sẵn trong snapshot, đổi tên thì bỏ snapshot của mọi product trong category
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        snapshots.values().removeIf(snapshot -> event.getCategoryId().equals(snapshot.getCategoryId()));
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    // Helper methods
+    private ProductSnapshot build(Product product) {
+        ProductResponseDto dto = toResponseDto(product);
+        try {
+            return new ProductSnapshot(dto, objectMapper.writeValueAsBytes(dto));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize product " + product.getId(), e);
+        }
+    }
+
+    /**
+     * Convert Product entity to ProductResponseDto
+     */
+    private ProductResponseDto toResponseDto(Product product) {
+        // Final price đã được tính sẵn khi lưu product
+        BigDecimal finalPrice = product.getFinalPrice() != null
+                ? product.getFinalPrice()
+                : Product.calculateFinalPrice(product.getPrice(), product.getDiscount());
+        
+        // Parse images from string to list
+        List<String> imagesList = product.getImages() != null && !product.getImages().isBlank()
+                ? List.of(product.getImages().split(",")) : List.of();
+        
+        ProductRatingService.RatingSummary rating = productRatingService.getSummary(product.getId());
+        
+        return ProductResponseDto.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .finalPrice(finalPrice)
+                .description(product.getDescription())
+                .images(imagesList)
+                .categoryId(product.getCategory().getId())
+                .categoryName(product.getCategory().getName())
+                .stock(product.getStock())
+                .componentType(product.getComponentType())
+                .discount(product.getDiscount() != null ? product.getDiscount().intValue() : 0)
+                .cpu(product.getCpu())
+                .main(product.getMain())
+                .ram(product.getRam())
+                .storage(product.getStorage())
+                .gpu(product.getGpu())
+                .power(product.getPower())
+                .caseComputer(product.getCaseComputer())
+                .coolers(product.getCoolers())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .averageRating(rating.average())
+                .totalReviews((int) rating.count())
+                .ratingHistogram(rating.histogram())
+                .build();
+    }
+}
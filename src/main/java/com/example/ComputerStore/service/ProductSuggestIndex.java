@@ -0,0 +1,431 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.SuggestionDto;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix trie cho autocomplete trên tên product và các từ khóa thông số.
+ * Mỗi node giữ sẵn top-k gợi ý của cả nhánh (xếp theo lượt bán), nên một lần tra cứu
+ * chỉ là đi xuống theo prefix rồi copy tối đa k phần tử.
+ * Số node của trie bị giới hạn (app.search.suggest-max-nodes): key cần tạo thêm node vượt giới hạn thì bị bỏ qua,
+ * tên đầy đủ của product được insert trước các key bắt đầu từ giữa tên và từ khóa thông số.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Pattern TOKEN_SPLITTER = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_KEY_LENGTH = 40;
+    // Key bắt đầu từ giữa tên chỉ cần đủ dài để phân biệt, phần còn lại người dùng gõ theo tên đầy đủ
+    private static final int MAX_SUFFIX_KEY_LENGTH = 20;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int BEST_SELLER_LIMIT = 1000;
+
+    private final ProductRepository productRepository;
+    private final PaymentRepository paymentRepository;
+
+    @Value("${app.search.suggest-max-nodes:500000}")
+    private int maxNodes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+
+    // Số node hiện có (tính cả root) và số key bị bỏ qua do chạm giới hạn node
+    private int nodeCount = 1;
+    private long skippedKeys;
+
+    // productId -> entry + các key đã insert, để gỡ khi product đổi tên / bị xóa
+    private Map<UUID, ProductDoc> products = new HashMap<>();
+
+    // term -> entry (weight = tổng weight các product chứa term)
+    private Map<String, Entry> terms = new HashMap<>();
+
+    // productId -> số lượng đã bán (từ PaymentRepository.getBestSellingProducts)
+    private Map<UUID, Long> salesWeights = new HashMap<>();
+
+    // Thay đổi nhận được trong lúc rebuild đang đọc DB, phát lại lên trie mới khi thay thế; null khi không rebuild
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Rebuild định kỳ để cập nhật trọng số theo lượt bán
+    @Scheduled(initialDelayString = "${app.search.suggest-refresh-ms:3600000}",
+            fixedDelayString = "${app.search.suggest-refresh-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Build lại toàn bộ trie từ DB rồi thay thế trie hiện tại. Các thay đổi đến trong lúc build
+     * được phát lại lên trie mới, nên không bị mất dù DB được đọc trước khi thay thế
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        setChangesDuringRebuild(new ArrayList<>());
+        Map<UUID, Long> newSalesWeights = new HashMap<>();
+        Node newRoot = new Node();
+        Map<UUID, ProductDoc> newProducts = new HashMap<>();
+        Map<String, Entry> newTerms = new HashMap<>();
+        try {
+            for (Object[] row : paymentRepository.getBestSellingProducts(PageRequest.of(0, BEST_SELLER_LIMIT))) {
+                newSalesWeights.put((UUID) row[0], ((Number) row[2]).longValue());
+            }
+            for (Product product : productRepository.findAll()) {
+                ProductDoc doc = analyze(product, newSalesWeights);
+                newProducts.put(product.getId(), doc);
+                for (String term : doc.terms()) {
+                    Entry previous = newTerms.get(term);
+                    long weight = (previous != null ? previous.weight() : 0) + doc.entry().weight();
+                    newTerms.put(term, new Entry("t:" + term, term, null, weight));
+                }
+            }
+        } catch (RuntimeException e) {
+            setChangesDuringRebuild(null);
+            throw e;
+        }
+        // Tên đầy đủ trước, rồi tới key từ giữa tên, cuối cùng là từ khóa thông số: chạm giới hạn thì bỏ phần sau
+        int newNodeCount = 1;
+        long newSkippedKeys = 0;
+        List<Map.Entry<String, Entry>> pending = new ArrayList<>();
+        for (ProductDoc doc : newProducts.values()) {
+            doc.keys().stream().limit(1).forEach(key -> pending.add(Map.entry(key, doc.entry())));
+        }
+        for (ProductDoc doc : newProducts.values()) {
+            doc.keys().stream().skip(1).forEach(key -> pending.add(Map.entry(key, doc.entry())));
+        }
+        for (Entry entry : newTerms.values()) {
+            pending.add(Map.entry(entry.text(), entry));
+        }
+        for (Map.Entry<String, Entry> key : pending) {
+            int created = insertWithinLimit(newRoot, newNodeCount, key.getKey(), key.getValue(), null);
+            if (created < 0) {
+                newSkippedKeys++;
+            } else {
+                newNodeCount += created;
+            }
+        }
+        computeTop(newRoot);
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            nodeCount = newNodeCount;
+            skippedKeys = newSkippedKeys;
+            products = newProducts;
+            terms = newTerms;
+            salesWeights = newSalesWeights;
+            changesDuringRebuild.forEach(this::applyLocked);
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product suggest index rebuilt: {} products, {} terms, {} nodes in {} ms",
+                newProducts.size(), newTerms.size(), newNodeCount, System.currentTimeMillis() - start);
+        if (newSkippedKeys > 0) {
+            log.warn("Product suggest index reached {} nodes, skipped {} keys", maxNodes, newSkippedKeys);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.Type.CREATED && event.getType() != ProductChangedEvent.Type.UPDATED
+                && event.getType() != ProductChangedEvent.Type.DELETED) {
+            // Tồn kho / rating không ảnh hưởng gợi ý
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            applyLocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Trả về tối đa limit gợi ý cho prefix, sắp xếp theo lượt bán
+     */
+    public List<SuggestionDto> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        if (prefix.length() > MAX_KEY_LENGTH) {
+            prefix = prefix.substring(0, MAX_KEY_LENGTH);
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            List<SuggestionDto> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && suggestions.size() < limit; i++) {
+                Entry entry = node.top[i];
+                suggestions.add(SuggestionDto.builder()
+                        .text(entry.text())
+                        .type(entry.productId() != null ? "product" : "term")
+                        .productId(entry.productId())
+                        .build());
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            return Map.of("name", "product-suggest", "products", products.size(), "terms", terms.size(),
+                    "nodes", nodeCount, "maxNodes", maxNodes, "skippedKeys", skippedKeys);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Helper methods
+    private void setChangesDuringRebuild(List<ProductChangedEvent> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(ProductChangedEvent event) {
+        removeLocked(event.getProductId());
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            return;
+        }
+        ProductDoc doc = analyze(event.getProduct(), salesWeights);
+        products.put(event.getProductId(), doc);
+        for (String key : doc.keys()) {
+            insertAndRecompute(key, doc.entry());
+        }
+        for (String term : doc.terms()) {
+            adjustTerm(term, doc.entry().weight());
+        }
+    }
+
+    private void removeLocked(UUID productId) {
+        ProductDoc doc = products.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String key : doc.keys()) {
+            removeAndRecompute(key, doc.entry().id());
+        }
+        for (String term : doc.terms()) {
+            adjustTerm(term, -doc.entry().weight());
+        }
+    }
+
+    private void adjustTerm(String term, long delta) {
+        Entry previous = terms.get(term);
+        long weight = (previous != null ? previous.weight() : 0) + delta;
+        if (previous != null) {
+            removeAndRecompute(term, previous.id());
+        }
+        if (weight > 0) {
+            Entry entry = new Entry("t:" + term, term, null, weight);
+            terms.put(term, entry);
+            insertAndRecompute(term, entry);
+        } else {
+            terms.remove(term);
+        }
+    }
+
+    private void insertAndRecompute(String key, Entry entry) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        int created = insertWithinLimit(root, nodeCount, key, entry, path);
+        if (created < 0) {
+            skippedKeys++;
+            return;
+        }
+        nodeCount += created;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recomputeTop(path.get(i));
+        }
+    }
+
+    private void removeAndRecompute(String key, String entryId) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+            if (node != null) {
+                path.add(node);
+            }
+        }
+        if (node == null) {
+            return;
+        }
+        node.terminals.removeIf(entry -> entry.id().equals(entryId));
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            if (i > 0 && current.terminals.isEmpty() && current.children.isEmpty()) {
+                path.get(i - 1).children.remove(key.charAt(i - 1));
+                nodeCount--;
+            }
+            recomputeTop(current);
+        }
+    }
+
+    // Insert nếu số node cần tạo thêm còn nằm trong giới hạn; trả về số node đã tạo, -1 nếu bỏ qua key.
+    // Key bị bỏ qua không để lại gì trong trie nên gỡ theo key sau này vẫn an toàn
+    private int insertWithinLimit(Node root, int currentNodes, String key, Entry entry, List<Node> path) {
+        int missing = missingNodes(root, key);
+        if (currentNodes + missing > maxNodes) {
+            return -1;
+        }
+        insert(root, key, entry, path);
+        return missing;
+    }
+
+    private static int missingNodes(Node root, String key) {
+        Node node = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            node = node.children.get(key.charAt(depth));
+            if (node == null) {
+                break;
+            }
+            depth++;
+        }
+        return key.length() - depth;
+    }
+
+    private static void insert(Node root, String key, Entry entry, List<Node> path) {
+        Node node = root;
+        if (path != null) {
+            path.add(node);
+        }
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            if (path != null) {
+                path.add(node);
+            }
+        }
+        node.terminals.removeIf(existing -> existing.id().equals(entry.id()));
+        node.terminals.add(entry);
+    }
+
+    // Tính top-k cho toàn bộ cây (post-order), dùng khi build mới
+    private static void computeTop(Node node) {
+        for (Node child : node.children.values()) {
+            computeTop(child);
+        }
+        recomputeTop(node);
+    }
+
+    // top-k của node = merge(entry kết thúc tại node, top-k của các node con), bỏ trùng theo id
+    private static void recomputeTop(Node node) {
+        List<Entry> candidates = new ArrayList<>(node.terminals);
+        for (Node child : node.children.values()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(Comparator.comparingLong(Entry::weight).reversed().thenComparing(Entry::text));
+
+        List<Entry> top = new ArrayList<>(MAX_SUGGESTIONS);
+        Set<String> seen = new HashSet<>();
+        for (Entry candidate : candidates) {
+            if (seen.add(candidate.id())) {
+                top.add(candidate);
+                if (top.size() == MAX_SUGGESTIONS) {
+                    break;
+                }
+            }
+        }
+        node.top = top.toArray(new Entry[0]);
+    }
+
+    private ProductDoc analyze(Product product, Map<UUID, Long> weights) {
+        // +1 để product chưa bán được vẫn có mặt trong gợi ý
+        long weight = 1 + weights.getOrDefault(product.getId(), 0L);
+        Entry entry = new Entry("p:" + product.getId(), product.getName(), product.getId(), weight);
+
+        // Insert tên từ đầu mỗi từ, để gõ "strix" cũng gợi ý ra "asus rog strix ..."; key đầu tiên là tên đầy đủ
+        List<String> nameTokens = tokenize(product.getName());
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < nameTokens.size(); i++) {
+            String key = String.join(" ", nameTokens.subList(i, nameTokens.size()));
+            int maxLength = i == 0 ? MAX_KEY_LENGTH : MAX_SUFFIX_KEY_LENGTH;
+            keys.add(key.length() > maxLength ? key.substring(0, maxLength) : key);
+        }
+
+        Set<String> productTerms = new HashSet<>();
+        for (String spec : Arrays.asList(product.getCpu(), product.getMain(), product.getRam(), product.getStorage(),
+                product.getGpu(), product.getPower(), product.getCaseComputer(), product.getCoolers())) {
+            for (String token : tokenize(spec)) {
+                if (token.length() >= MIN_TERM_LENGTH && token.length() <= MAX_KEY_LENGTH) {
+                    productTerms.add(token);
+                }
+            }
+        }
+        return new ProductDoc(entry, List.copyOf(keys), Set.copyOf(productTerms));
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    // Key và query đều được bỏ dấu; text hiển thị vẫn giữ nguyên tên gốc
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SPLITTER.split(TextNormalizer.fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record Entry(String id, String text, UUID productId, long weight) {
+    }
+
+    private record ProductDoc(Entry entry, List<String> keys, Set<String> terms) {
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Entry> terminals = new ArrayList<>(1);
+        Entry[] top = new Entry[0];
+    }
+}
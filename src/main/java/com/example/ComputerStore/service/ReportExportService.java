@@ -0,0 +1,133 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.PaymentExportRow;
+import com.example.ComputerStore.dto.response.SalesReportRow;
+import com.example.ComputerStore.enumeric.ExportFormat;
+import com.example.ComputerStore.enumeric.RollupGranularity;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.PaymentRollupRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Export payments / báo cáo bán hàng ra CSV hoặc NDJSON, ghi thẳng ra output stream theo từng dòng.
+ * Payments được đọc bằng cursor một chiều (Stream) nên bộ nhớ không phụ thuộc số dòng.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportExportService {
+
+    // Flush sau mỗi FLUSH_EVERY dòng để client nhận dữ liệu dần, không đợi hết file
+    private static final int FLUSH_EVERY = 1000;
+    // Cùng format với createdAt / updatedAt khi trả JSON (BaseEntity)
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentRollupRepository paymentRollupRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Export payments tạo trong [fromDate, toDate] (tính cả ngày cuối), trả về số dòng đã ghi
+     */
+    @Transactional(readOnly = true)
+    public long exportPayments(LocalDate fromDate, LocalDate toDate, ExportFormat format, OutputStream out)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        try (Stream<PaymentExportRow> rows = paymentRepository.streamForExport(
+                fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay())) {
+            long count = write(rows.iterator(), format, PaymentExportRow.COLUMNS, PaymentExportRow::values, out);
+            log.info("Exported {} payments ({} -> {}, {}) in {} ms",
+                    count, fromDate, toDate, format, System.currentTimeMillis() - start);
+            return count;
+        }
+    }
+
+    /**
+     * Export báo cáo bán hàng theo ngày trong [fromDate, toDate] từ bảng tổng hợp payment_rollups
+     */
+    @Transactional(readOnly = true)
+    public long exportSalesReport(LocalDate fromDate, LocalDate toDate, ExportFormat format, OutputStream out)
+            throws IOException {
+        Iterator<SalesReportRow> rows = paymentRollupRepository.findBuckets(RollupGranularity.DAY,
+                        fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay())
+                .stream()
+                .filter(rollup -> rollup.getOrderCount() != 0)
+                .map(rollup -> new SalesReportRow(
+                        rollup.getId().getBucketStart().toLocalDate(),
+                        rollup.getId().getStatus(),
+                        rollup.getId().getTypePayment(),
+                        rollup.getId().getComponentType(),
+                        rollup.getRevenue(),
+                        rollup.getOrderCount(),
+                        rollup.getQuantity()))
+                .iterator();
+        return write(rows, format, SalesReportRow.COLUMNS, SalesReportRow::values, out);
+    }
+
+    // Helper methods
+    private <T> long write(Iterator<T> rows, ExportFormat format, List<String> columns,
+                           Function<T, List<Object>> values, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            // BOM để Excel nhận đúng UTF-8 (tên khách hàng tiếng Việt)
+            out.write(UTF8_BOM);
+            writeCsvLine(writer, columns);
+        }
+
+        long count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, values.apply(row));
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(escapeCsv(value));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(Object value) {
+        String text = value instanceof LocalDateTime dateTime ? DATE_TIME_FORMAT.format(dateTime) : value.toString();
+        // Chặn CSV injection: chuỗi bắt đầu bằng = + - @ bị Excel hiểu là công thức
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
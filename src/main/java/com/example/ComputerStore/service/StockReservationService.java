@@ -0,0 +1,55 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.entity.StockReservation;
+import com.example.ComputerStore.enumeric.ReservationSource;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface StockReservationService {
+
+    /**
+     * Giữ đúng quantity sản phẩm cho dòng giỏ (user + product + nơi giữ), trừ / trả kho phần chênh lệch
+     * và gia hạn thời gian giữ. Ném RuntimeException nếu kho không đủ.
+     */
+    StockReservation hold(UUID userId, UUID productId, ReservationSource source, int quantity);
+
+    /**
+     * Giữ hàng cho nhiều dòng giỏ của user trong một lần (productId -> số lượng mới, 0 = hủy giữ).
+     * Các dòng giữ hàng được khóa bằng một query; ném RuntimeException nếu một product không đủ hàng.
+     */
+    void holdAll(UUID userId, ReservationSource source, Map<UUID, Integer> quantities);
+
+    /**
+     * Hủy giữ hàng của dòng giỏ và trả hàng về kho, không làm gì nếu không có
+     */
+    void release(UUID userId, UUID productId, ReservationSource source);
+
+    /**
+     * Hủy mọi dòng giữ hàng của user tại một nơi giữ
+     */
+    void releaseAll(UUID userId, ReservationSource source);
+
+    /**
+     * Chuyển hàng đang giữ thành đã bán (checkout): xóa dòng giữ, không trả kho.
+     * Trả về số lượng đã giữ, 0 nếu dòng không còn (đã hết hạn / bị hủy).
+     */
+    int commit(UUID userId, UUID productId, ReservationSource source);
+
+    /**
+     * Checkout nhiều dòng giỏ của user trong một lần (productId -> số lượng bán): xóa các dòng giữ hàng,
+     * trừ thêm phần thiếu (giữ đã hết hạn / giữ ít hơn) và trả lại phần thừa về kho.
+     * Ném RuntimeException nếu một product không đủ hàng cho phần thiếu.
+     */
+    void commitAll(UUID userId, ReservationSource source, Map<UUID, Integer> quantities);
+
+    /**
+     * Số lượng đang giữ cho dòng giỏ, 0 nếu không có
+     */
+    int heldQuantity(UUID userId, UUID productId, ReservationSource source);
+
+    /**
+     * Trả về kho các dòng giữ hàng đã hết hạn, trả về số dòng đã xử lý
+     */
+    int expireDue();
+}
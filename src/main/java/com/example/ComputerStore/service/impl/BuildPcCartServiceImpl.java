@@ -7,13 +7,19 @@ import com.example.ComputerStore.entity.BuildPcCart;
 import com.example.ComputerStore.entity.Product;
 import com.example.ComputerStore.entity.User;
 import com.example.ComputerStore.entity.Cart;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import com.example.ComputerStore.event.CartChangedEvent;
 import com.example.ComputerStore.repository.BuildPcCartRepository;
 import com.example.ComputerStore.repository.ProductRepository;
 import com.example.ComputerStore.repository.UserRepository;
 import com.example.ComputerStore.repository.CartRepository;
 import com.example.ComputerStore.service.BuildPcCartService;
+import com.example.ComputerStore.service.CartWriteBehindStore;
+import com.example.ComputerStore.service.ProductSnapshotStore;
+import com.example.ComputerStore.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,6 +41,10 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
+    private final ProductSnapshotStore productSnapshotStore;
+    private final StockReservationService stockReservationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CartWriteBehindStore cartWriteBehindStore;
     
     @Override
     @Transactional
@@ -49,26 +59,19 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
         Product product = productRepository.findById(addToBuildPcCartDto.getProductId())
                 .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
         
-        // Check stock availability
-        if (product.getStock() < addToBuildPcCartDto.getQuantity()) {
-            throw new RuntimeException("Số lượng trong kho không đủ");
-        }
-        
         // Check if product already exists in build PC cart
         Optional<BuildPcCart> existingItem = buildPcCartRepository
                 .findByUserIdAndProductId(userId, addToBuildPcCartDto.getProductId());
         
+        // Giữ hàng cho tổng số lượng mới (trừ kho atomic, ném lỗi nếu không đủ)
+        int newQuantity = existingItem.map(BuildPcCart::getQuantity).orElse(0) + addToBuildPcCartDto.getQuantity();
+        stockReservationService.hold(userId, product.getId(), ReservationSource.BUILD_PC, newQuantity);
+        
         BuildPcCart buildPcCartItem;
         
         if (existingItem.isPresent()) {
             // Update existing item
             buildPcCartItem = existingItem.get();
-            int newQuantity = buildPcCartItem.getQuantity() + addToBuildPcCartDto.getQuantity();
-            
-            // Check stock again for new total quantity
-            if (product.getStock() < newQuantity) {
-                throw new RuntimeException("Số lượng trong kho không đủ");
-            }
             
             buildPcCartItem.setQuantity(newQuantity);
             buildPcCartItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(newQuantity)));
@@ -113,10 +116,8 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
         
         Product product = buildPcCartItem.getProduct();
         
-        // Check stock availability
-        if (product.getStock() < updateDto.getQuantity()) {
-            throw new RuntimeException("Số lượng trong kho không đủ");
-        }
+        // Giữ hàng theo số lượng mới: trừ thêm hoặc trả bớt về kho phần chênh lệch
+        stockReservationService.hold(userId, product.getId(), ReservationSource.BUILD_PC, updateDto.getQuantity());
         
         buildPcCartItem.setQuantity(updateDto.getQuantity());
         buildPcCartItem.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(updateDto.getQuantity())));
@@ -136,6 +137,7 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
                 .findByUserIdAndProductId(userId, productId)
                 .orElseThrow(() -> new RuntimeException("Sản phẩm không có trong build PC cart"));
         
+        stockReservationService.release(userId, productId, ReservationSource.BUILD_PC);
         buildPcCartRepository.delete(buildPcCartItem);
         
         log.info("Product removed from build PC cart successfully");
@@ -146,6 +148,7 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
     public void clearBuildPcCart(UUID userId) {
         log.info("Clearing build PC cart for user: {}", userId);
         
+        stockReservationService.releaseAll(userId, ReservationSource.BUILD_PC);
         buildPcCartRepository.deleteByUserId(userId);
         
         log.info("Build PC cart cleared successfully");
@@ -156,17 +159,22 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
     public void addBuildPcCartToCart(UUID userId) {
         log.info("Moving build PC cart to regular cart for user: {}", userId);
         
+        cartWriteBehindStore.flushUser(userId);
         List<BuildPcCart> buildPcCartItems = buildPcCartRepository.findByUserId(userId);
         
         for (BuildPcCart buildPcCartItem : buildPcCartItems) {
+            UUID productId = buildPcCartItem.getProduct().getId();
             // Check if product already exists in regular cart
-            Optional<Cart> existingCartItem = cartRepository
-                    .findByUserIdAndProductId(userId, buildPcCartItem.getProduct().getId());
+            Optional<Cart> existingCartItem = cartRepository.findByUserIdAndProductId(userId, productId);
+            
+            // Chuyển phần giữ hàng từ build PC cart sang cart trong cùng transaction
+            int newQuantity = existingCartItem.map(Cart::getQuantity).orElse(0) + buildPcCartItem.getQuantity();
+            stockReservationService.release(userId, productId, ReservationSource.BUILD_PC);
+            stockReservationService.hold(userId, productId, ReservationSource.CART, newQuantity);
             
             if (existingCartItem.isPresent()) {
                 // Update existing cart item
                 Cart cartItem = existingCartItem.get();
-                int newQuantity = cartItem.getQuantity() + buildPcCartItem.getQuantity();
                 cartItem.setQuantity(newQuantity);
                 cartItem.setTotalPrice(cartItem.getProduct().getPrice().multiply(BigDecimal.valueOf(newQuantity)));
                 cartRepository.save(cartItem);
@@ -184,6 +192,7 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
         
         // Clear build PC cart after moving to regular cart
         buildPcCartRepository.deleteByUserId(userId);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         
         log.info("Build PC cart moved to regular cart successfully");
     }
@@ -226,10 +235,8 @@ public class BuildPcCartServiceImpl implements BuildPcCartService {
         productInfo.setId(product.getId());
         productInfo.setName(product.getName());
         productInfo.setPrice(product.getPrice());
-        // Parse images from JSON string to List
-        if (product.getImages() != null) {
-            productInfo.setImages(List.of(product.getImages().split(",")));
-        }
+        // Images đã được tách sẵn trong snapshot của product
+        productInfo.setImages(productSnapshotStore.snapshotOf(product).getDto().getImages());
         productInfo.setComponentType(product.getComponentType());
         productInfo.setStock(product.getStock());
         // Convert BigDecimal discount to Integer percentage
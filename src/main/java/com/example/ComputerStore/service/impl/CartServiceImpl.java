@@ -1,31 +1,51 @@
 package com.example.ComputerStore.service.impl;
 
 import com.example.ComputerStore.dto.request.AddToCartDto;
+import com.example.ComputerStore.dto.request.CartBatchDto;
+import com.example.ComputerStore.dto.request.CartOperationDto;
 import com.example.ComputerStore.dto.request.UpdateCartInfoDto;
 import com.example.ComputerStore.dto.request.UpdateCartQuantityDto;
 import com.example.ComputerStore.dto.response.CartResponseDto;
 import com.example.ComputerStore.dto.response.CartSummaryDto;
+import com.example.ComputerStore.dto.response.ProductResponseDto;
 import com.example.ComputerStore.entity.BuildPcCart;
 import com.example.ComputerStore.entity.Cart;
 import com.example.ComputerStore.entity.Product;
 import com.example.ComputerStore.entity.User;
+import com.example.ComputerStore.enumeric.CartOperationType;
 import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.enumeric.ReservationSource;
 import com.example.ComputerStore.repository.BuildPcCartRepository;
 import com.example.ComputerStore.repository.CartRepository;
 import com.example.ComputerStore.repository.ProductRepository;
 import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.event.CartChangedEvent;
 import com.example.ComputerStore.service.CartService;
+import com.example.ComputerStore.service.CartSummaryCache;
+import com.example.ComputerStore.service.CartWriteBehindStore;
+import com.example.ComputerStore.service.ProductSnapshotStore;
+import com.example.ComputerStore.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,15 +54,26 @@ import java.util.stream.Collectors;
 @Transactional
 public class CartServiceImpl implements CartService {
 
+    private static final Set<ComponentType> ACCESSORY_TYPES = EnumSet.of(
+        ComponentType.MONITOR, ComponentType.KEYBOARD, ComponentType.MOUSE, ComponentType.HEADSET);
+
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final BuildPcCartRepository buildPcCartRepository;
+    private final ProductSnapshotStore productSnapshotStore;
+    private final StockReservationService stockReservationService;
+    private final CartSummaryCache cartSummaryCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CartWriteBehindStore cartWriteBehindStore;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public CartResponseDto addToCart(UUID userId, AddToCartDto addToCartDto) {
         log.info("Adding product {} to cart for user {}", addToCartDto.getProductId(), userId);
         
+        cartWriteBehindStore.flushUser(userId);
+        
         // Validate user exists
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User không tồn tại với ID: " + userId));
@@ -51,24 +82,17 @@ public class CartServiceImpl implements CartService {
         Product product = productRepository.findById(addToCartDto.getProductId())
             .orElseThrow(() -> new RuntimeException("Product không tồn tại với ID: " + addToCartDto.getProductId()));
         
-        // Check stock availability
-        if (product.getStock() < addToCartDto.getQuantity()) {
-            throw new RuntimeException("Số lượng trong kho không đủ. Còn lại: " + product.getStock());
-        }
-        
         // Check if product already in cart
         Optional<Cart> existingCartItem = cartRepository.findByUserIdAndProductId(userId, addToCartDto.getProductId());
         
+        // Giữ hàng cho tổng số lượng mới (trừ kho atomic, ném lỗi nếu không đủ)
+        int newQuantity = existingCartItem.map(Cart::getQuantity).orElse(0) + addToCartDto.getQuantity();
+        stockReservationService.hold(userId, product.getId(), ReservationSource.CART, newQuantity);
+        
         Cart cartItem;
         if (existingCartItem.isPresent()) {
             // Update existing cart item
             cartItem = existingCartItem.get();
-            int newQuantity = cartItem.getQuantity() + addToCartDto.getQuantity();
-            
-            // Check total quantity against stock
-            if (product.getStock() < newQuantity) {
-                throw new RuntimeException("Tổng số lượng vượt quá tồn kho. Còn lại: " + product.getStock());
-            }
             
             // Calculate new total price
             BigDecimal unitPrice = calculateUnitPrice(product);
@@ -91,16 +115,97 @@ public class CartServiceImpl implements CartService {
         }
         
         Cart savedCartItem = cartRepository.save(cartItem);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("Product added to cart successfully: {}", savedCartItem.getId());
         
         return convertToCartResponse(savedCartItem);
     }
 
+    @Override
+    public List<CartResponseDto> applyCartBatch(UUID userId, CartBatchDto cartBatchDto) {
+        List<CartOperationDto> operations = cartBatchDto.getOperations();
+        log.info("Applying {} cart operations for user {}", operations.size(), userId);
+        
+        cartWriteBehindStore.flushUser(userId);
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User không tồn tại với ID: " + userId));
+        
+        // Load một lần toàn bộ product trong batch và toàn bộ dòng giỏ hiện tại
+        Set<UUID> productIds = operations.stream().map(CartOperationDto::getProductId).collect(Collectors.toSet());
+        Map<UUID, Product> products = productRepository.findAllByIdWithCategory(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<UUID, Cart> lines = new LinkedHashMap<>();
+        cartRepository.findByUserIdWithProduct(userId)
+            .forEach(cartItem -> lines.put(cartItem.getProduct().getId(), cartItem));
+        
+        // Áp dụng các thao tác theo thứ tự trên số lượng trong bộ nhớ
+        Map<UUID, Integer> quantities = new HashMap<>();
+        lines.forEach((productId, cartItem) -> quantities.put(productId, cartItem.getQuantity()));
+        for (CartOperationDto operation : operations) {
+            UUID productId = operation.getProductId();
+            if (!products.containsKey(productId)) {
+                throw new RuntimeException("Product không tồn tại với ID: " + productId);
+            }
+            int current = quantities.getOrDefault(productId, 0);
+            if (operation.getAction() != CartOperationType.ADD && current == 0) {
+                throw new RuntimeException("Sản phẩm không có trong giỏ hàng: " + productId);
+            }
+            if (operation.getAction() != CartOperationType.REMOVE && operation.getQuantity() == null) {
+                throw new RuntimeException("Số lượng không được để trống");
+            }
+            switch (operation.getAction()) {
+                case ADD -> quantities.put(productId, current + operation.getQuantity());
+                case UPDATE -> quantities.put(productId, operation.getQuantity());
+                case REMOVE -> quantities.put(productId, 0);
+            }
+        }
+        
+        // Chỉ các dòng có số lượng thay đổi mới cần giữ hàng / ghi xuống DB
+        Map<UUID, Integer> changed = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            Cart cartItem = lines.get(productId);
+            if (cartItem == null ? quantity > 0 : cartItem.getQuantity() != quantity) {
+                changed.put(productId, quantity);
+            }
+        });
+        stockReservationService.holdAll(userId, ReservationSource.CART, changed);
+        
+        List<Cart> toSave = new ArrayList<>();
+        List<Cart> toDelete = new ArrayList<>();
+        changed.forEach((productId, quantity) -> {
+            if (quantity == 0) {
+                toDelete.add(lines.remove(productId));
+                return;
+            }
+            Product product = products.get(productId);
+            Cart cartItem = lines.computeIfAbsent(productId, id -> Cart.builder()
+                .user(user)
+                .product(product)
+                .build());
+            cartItem.setQuantity(quantity);
+            cartItem.setTotalPrice(calculateUnitPrice(product).multiply(BigDecimal.valueOf(quantity)));
+            toSave.add(cartItem);
+        });
+        
+        // Ghi theo lô: INSERT / UPDATE được gom bằng hibernate.jdbc.batch_size, DELETE gộp một câu
+        cartRepository.saveAll(toSave);
+        if (!toDelete.isEmpty()) {
+            cartRepository.deleteAllInBatch(toDelete);
+        }
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
+        log.info("Cart batch applied: {} lines saved, {} lines removed", toSave.size(), toDelete.size());
+        
+        return lines.values().stream()
+            .map(this::convertToCartResponse)
+            .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<CartResponseDto> getCart(UUID userId) {
         log.info("Getting cart for user: {}", userId);
         
+        cartWriteBehindStore.flushUser(userId);
         List<Cart> cartItems = cartRepository.findByUserId(userId);
         
         return cartItems.stream()
@@ -109,19 +214,29 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CartResponseDto updateCartQuantity(UUID userId, UpdateCartQuantityDto updateCartQuantityDto) {
         log.info("Updating cart quantity for user {} and product {}", userId, updateCartQuantityDto.getProductId());
         
+        if (cartWriteBehindStore.isEnabled()) {
+            // Write-behind: chỉ cập nhật giỏ trong bộ nhớ + journal, không mở transaction DB
+            CartResponseDto response = cartWriteBehindStore.updateQuantity(
+                userId, updateCartQuantityDto.getProductId(), updateCartQuantityDto.getQuantity(), this::loadCartForWriteBehind);
+            eventPublisher.publishEvent(new CartChangedEvent(userId));
+            return response;
+        }
+        return transactionTemplate.execute(status -> updateCartQuantityInDb(userId, updateCartQuantityDto));
+    }
+
+    private CartResponseDto updateCartQuantityInDb(UUID userId, UpdateCartQuantityDto updateCartQuantityDto) {
         // Find cart item
         Cart cartItem = cartRepository.findByUserIdAndProductId(userId, updateCartQuantityDto.getProductId())
             .orElseThrow(() -> new RuntimeException("Sản phẩm không có trong giỏ hàng"));
         
         Product product = cartItem.getProduct();
         
-        // Check stock availability
-        if (product.getStock() < updateCartQuantityDto.getQuantity()) {
-            throw new RuntimeException("Số lượng trong kho không đủ. Còn lại: " + product.getStock());
-        }
+        // Giữ hàng theo số lượng mới: trừ thêm hoặc trả bớt về kho phần chênh lệch
+        stockReservationService.hold(userId, product.getId(), ReservationSource.CART, updateCartQuantityDto.getQuantity());
         
         // Update quantity and total price
         BigDecimal unitPrice = calculateUnitPrice(product);
@@ -131,6 +246,7 @@ public class CartServiceImpl implements CartService {
         cartItem.setTotalPrice(newTotalPrice);
         
         Cart updatedCartItem = cartRepository.save(cartItem);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("Cart quantity updated successfully");
         
         return convertToCartResponse(updatedCartItem);
@@ -140,6 +256,7 @@ public class CartServiceImpl implements CartService {
     public void removeFromCart(UUID userId, UUID cartId) {
         log.info("Removing cart item {} for user {}", cartId, userId);
         
+        cartWriteBehindStore.flushUser(userId);
         Cart cartItem = cartRepository.findById(cartId)
             .orElseThrow(() -> new RuntimeException("Cart item không tồn tại"));
         
@@ -148,7 +265,9 @@ public class CartServiceImpl implements CartService {
             throw new RuntimeException("Không có quyền xóa cart item này");
         }
         
+        stockReservationService.release(userId, cartItem.getProduct().getId(), ReservationSource.CART);
         cartRepository.delete(cartItem);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("Cart item removed successfully");
     }
 
@@ -156,10 +275,13 @@ public class CartServiceImpl implements CartService {
     public void removeProductFromCart(UUID userId, UUID productId) {
         log.info("Removing product {} from cart for user {}", productId, userId);
         
+        cartWriteBehindStore.flushUser(userId);
         Cart cartItem = cartRepository.findByUserIdAndProductId(userId, productId)
             .orElseThrow(() -> new RuntimeException("Sản phẩm không có trong giỏ hàng"));
         
+        stockReservationService.release(userId, productId, ReservationSource.CART);
         cartRepository.delete(cartItem);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("Product removed from cart successfully");
     }
 
@@ -167,7 +289,10 @@ public class CartServiceImpl implements CartService {
     public void clearCart(UUID userId) {
         log.info("Clearing cart for user: {}", userId);
         
+        cartWriteBehindStore.flushUser(userId);
+        stockReservationService.releaseAll(userId, ReservationSource.CART);
         cartRepository.deleteByUserId(userId);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("Cart cleared successfully");
     }
 
@@ -175,6 +300,7 @@ public class CartServiceImpl implements CartService {
     public void updateCartInfo(UUID userId, UpdateCartInfoDto updateCartInfoDto) {
         log.info("Updating cart info for user: {}", userId);
         
+        cartWriteBehindStore.flushUser(userId);
         List<Cart> cartItems = cartRepository.findByUserId(userId);
         
         if (cartItems.isEmpty()) {
@@ -189,25 +315,27 @@ public class CartServiceImpl implements CartService {
         });
         
         cartRepository.saveAll(cartItems);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("Cart info updated successfully");
     }
 
+    // Badge trên header: đọc từ tóm tắt đã cache theo user
     @Override
     @Transactional(readOnly = true)
     public long getCartCount(UUID userId) {
-        return cartRepository.countByUserId(userId);
+        return cartSummaryCache.get(userId, this::loadCartSummary).getTotalItems();
     }
 
     @Override
     @Transactional(readOnly = true)
     public int getCartTotalQuantity(UUID userId) {
-        return cartRepository.getTotalQuantityByUserId(userId);
+        return cartSummaryCache.get(userId, this::loadCartSummary).getTotalQuantity();
     }
 
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getCartTotal(UUID userId) {
-        return cartRepository.getTotalPriceByUserId(userId);
+        return cartSummaryCache.get(userId, this::loadCartSummary).getFinalTotal();
     }
 
     @Override
@@ -215,64 +343,17 @@ public class CartServiceImpl implements CartService {
     public CartSummaryDto getCartSummary(UUID userId) {
         log.info("Getting cart summary for user: {}", userId);
         
-        List<Cart> cartItems = cartRepository.findByUserId(userId);
-        
-        if (cartItems.isEmpty()) {
-            return CartSummaryDto.builder()
-                .totalItems(0)
-                .totalQuantity(0)
-                .subtotal(BigDecimal.ZERO)
-                .totalDiscount(BigDecimal.ZERO)
-                .finalTotal(BigDecimal.ZERO)
-                .stats(CartSummaryDto.CartStatsDto.builder()
-                    .pcBuildsCount(0)
-                    .componentsCount(0)
-                    .accessoriesCount(0)
-                    .inStockItems(0)
-                    .outOfStockItems(0)
-                    .discountedItems(0)
-                    .averageItemPrice(BigDecimal.ZERO)
-                    .mostExpensiveItem("N/A")
-                    .cheapestItem("N/A")
-                    .build())
-                .build();
-        }
-        
-        // Calculate totals
-        long totalItems = cartItems.size();
-        int totalQuantity = cartItems.stream().mapToInt(Cart::getQuantity).sum();
-        
-        BigDecimal subtotal = BigDecimal.ZERO;
-        BigDecimal totalDiscount = BigDecimal.ZERO;
-        
-        for (Cart cartItem : cartItems) {
-            Product product = cartItem.getProduct();
-            BigDecimal originalPrice = product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity()));
-            BigDecimal itemTotal = cartItem.getTotalPrice();
-            
-            subtotal = subtotal.add(originalPrice);
-            totalDiscount = totalDiscount.add(originalPrice.subtract(itemTotal));
-        }
-        
-        BigDecimal finalTotal = subtotal.subtract(totalDiscount);
-        
-        // Calculate stats
-        CartSummaryDto.CartStatsDto stats = calculateCartStats(cartItems);
-        
-        return CartSummaryDto.builder()
-            .totalItems(totalItems)
-            .totalQuantity(totalQuantity)
-            .subtotal(subtotal)
-            .totalDiscount(totalDiscount)
-            .finalTotal(finalTotal)
-            .stats(stats)
-            .build();
+        // Luôn tính mới (một query) cho trang tóm tắt, đồng thời làm mới cache cho badge
+        CartSummaryDto summary = loadCartSummary(userId);
+        cartSummaryCache.put(userId, summary);
+        return summary;
     }
 
     @Override
     public void transferFromBuildPcCart(UUID userId) {
         log.info("Transferring BuildPcCart to Cart for user: {}", userId);
         
+        cartWriteBehindStore.flushUser(userId);
         List<BuildPcCart> buildPcCartItems = buildPcCartRepository.findByUserId(userId);
         
         if (buildPcCartItems.isEmpty()) {
@@ -282,16 +363,20 @@ public class CartServiceImpl implements CartService {
         
         // Transfer each item
         for (BuildPcCart buildPcCartItem : buildPcCartItems) {
-            Optional<Cart> existingCartItem = cartRepository.findByUserIdAndProductId(
-                userId, buildPcCartItem.getProduct().getId());
+            UUID productId = buildPcCartItem.getProduct().getId();
+            Optional<Cart> existingCartItem = cartRepository.findByUserIdAndProductId(userId, productId);
+            
+            // Chuyển phần giữ hàng từ BuildPcCart sang Cart trong cùng transaction
+            int cartQuantity = existingCartItem.map(Cart::getQuantity).orElse(0) + buildPcCartItem.getQuantity();
+            stockReservationService.release(userId, productId, ReservationSource.BUILD_PC);
+            stockReservationService.hold(userId, productId, ReservationSource.CART, cartQuantity);
             
             if (existingCartItem.isPresent()) {
                 // Update existing cart item
                 Cart cartItem = existingCartItem.get();
-                int newQuantity = cartItem.getQuantity() + buildPcCartItem.getQuantity();
                 BigDecimal newTotalPrice = cartItem.getTotalPrice().add(buildPcCartItem.getTotalPrice());
                 
-                cartItem.setQuantity(newQuantity);
+                cartItem.setQuantity(cartQuantity);
                 cartItem.setTotalPrice(newTotalPrice);
                 cartRepository.save(cartItem);
             } else {
@@ -308,6 +393,7 @@ public class CartServiceImpl implements CartService {
         
         // Clear BuildPcCart after transfer
         buildPcCartRepository.deleteAll(buildPcCartItems);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
         log.info("BuildPcCart transferred to Cart successfully");
     }
 
@@ -322,13 +408,17 @@ public class CartServiceImpl implements CartService {
     public void validateCartStock(UUID userId) {
         log.info("Validating cart stock for user: {}", userId);
         
+        cartWriteBehindStore.flushUser(userId);
         List<Cart> cartItems = cartRepository.findByUserId(userId);
         
         for (Cart cartItem : cartItems) {
             Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
+            // Phần user đang giữ đã bị trừ khỏi stock nên vẫn tính là có sẵn cho user này
+            int available = product.getStock()
+                + stockReservationService.heldQuantity(userId, product.getId(), ReservationSource.CART);
+            if (available < cartItem.getQuantity()) {
                 throw new RuntimeException("Sản phẩm '" + product.getName() + 
-                    "' không đủ số lượng. Còn lại: " + product.getStock() + 
+                    "' không đủ số lượng. Còn lại: " + available + 
                     ", cần: " + cartItem.getQuantity());
             }
         }
@@ -348,15 +438,12 @@ public class CartServiceImpl implements CartService {
 
     private CartResponseDto convertToCartResponse(Cart cartItem) {
         Product product = cartItem.getProduct();
+        // Images và giá sau giảm lấy từ snapshot đã tính sẵn của product
+        ProductResponseDto snapshot = productSnapshotStore.snapshotOf(product).getDto();
         
-        // Parse images
-        List<String> images = (product.getImages() != null && !product.getImages().trim().isEmpty())
-            ? Arrays.asList(product.getImages().split(","))
-            : List.of();
-        
-        // Calculate prices
+        List<String> images = snapshot.getImages();
         BigDecimal originalPrice = product.getPrice();
-        BigDecimal finalPrice = calculateUnitPrice(product);
+        BigDecimal finalPrice = snapshot.getFinalPrice();
         
         // Stock status
         boolean inStock = product.getStock() > 0;
@@ -390,70 +477,52 @@ public class CartServiceImpl implements CartService {
             .build();
     }
     
-    private CartSummaryDto.CartStatsDto calculateCartStats(List<Cart> cartItems) {
-        long pcBuildsCount = cartItems.stream()
-            .mapToLong(item -> ComponentType.PC.equals(item.getProduct().getComponentType()) ? 1 : 0)
-            .sum();
-        
-        long componentsCount = cartItems.stream()
-            .mapToLong(item -> !ComponentType.PC.equals(item.getProduct().getComponentType()) &&
-                              !isAccessory(item.getProduct().getComponentType()) ? 1 : 0)
-            .sum();
-        
-        long accessoriesCount = cartItems.stream()
-            .mapToLong(item -> isAccessory(item.getProduct().getComponentType()) ? 1 : 0)
-            .sum();
-        
-        long inStockItems = cartItems.stream()
-            .mapToLong(item -> item.getProduct().getStock() > 0 ? 1 : 0)
-            .sum();
-        
-        long outOfStockItems = cartItems.size() - inStockItems;
-        
-        long discountedItems = cartItems.stream()
-            .mapToLong(item -> {
-                BigDecimal discount = item.getProduct().getDiscount();
-                return (discount != null && discount.compareTo(BigDecimal.ZERO) > 0) ? 1 : 0;
-            })
-            .sum();
-        
-        // Calculate average price
-        BigDecimal totalPrice = cartItems.stream()
-            .map(Cart::getTotalPrice)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal averageItemPrice = cartItems.isEmpty() 
-            ? BigDecimal.ZERO 
-            : totalPrice.divide(BigDecimal.valueOf(cartItems.size()), 2, RoundingMode.HALF_UP);
-        
-        // Find most/least expensive items
-        String mostExpensiveItem = cartItems.stream()
-            .max((a, b) -> a.getProduct().getPrice().compareTo(b.getProduct().getPrice()))
-            .map(item -> item.getProduct().getName())
-            .orElse("N/A");
-        
-        String cheapestItem = cartItems.stream()
-            .min((a, b) -> a.getProduct().getPrice().compareTo(b.getProduct().getPrice()))
-            .map(item -> item.getProduct().getName())
-            .orElse("N/A");
-        
-        return CartSummaryDto.CartStatsDto.builder()
+    private List<CartResponseDto> loadCartForWriteBehind(UUID userId) {
+        return cartRepository.findByUserIdWithProduct(userId).stream()
+            .map(this::convertToCartResponse)
+            .collect(Collectors.toList());
+    }
+    
+    private CartSummaryDto loadCartSummary(UUID userId) {
+        cartWriteBehindStore.flushUser(userId);
+        return computeCartSummary(userId);
+    }
+    
+    private CartSummaryDto computeCartSummary(UUID userId) {
+        Object[] row = cartRepository.getCartSummary(userId, ComponentType.PC, ACCESSORY_TYPES,
+            ReservationSource.CART).get(0);
+        
+        long totalItems = ((Number) row[0]).longValue();
+        int totalQuantity = ((Number) row[1]).intValue();
+        BigDecimal subtotal = (BigDecimal) row[2];
+        BigDecimal finalTotal = (BigDecimal) row[3];
+        long pcBuildsCount = ((Number) row[4]).longValue();
+        long accessoriesCount = ((Number) row[5]).longValue();
+        long inStockItems = ((Number) row[6]).longValue();
+        
+        BigDecimal averageItemPrice = totalItems == 0
+            ? BigDecimal.ZERO
+            : finalTotal.divide(BigDecimal.valueOf(totalItems), 2, RoundingMode.HALF_UP);
+        
+        CartSummaryDto.CartStatsDto stats = CartSummaryDto.CartStatsDto.builder()
             .pcBuildsCount(pcBuildsCount)
-            .componentsCount(componentsCount)
+            .componentsCount(totalItems - pcBuildsCount - accessoriesCount)
             .accessoriesCount(accessoriesCount)
             .inStockItems(inStockItems)
-            .outOfStockItems(outOfStockItems)
-            .discountedItems(discountedItems)
+            .outOfStockItems(totalItems - inStockItems)
+            .discountedItems(((Number) row[7]).longValue())
             .averageItemPrice(averageItemPrice)
-            .mostExpensiveItem(mostExpensiveItem)
-            .cheapestItem(cheapestItem)
+            .mostExpensiveItem(row[8] != null ? (String) row[8] : "N/A")
+            .cheapestItem(row[9] != null ? (String) row[9] : "N/A")
+            .build();
+        
+        return CartSummaryDto.builder()
+            .totalItems(totalItems)
+            .totalQuantity(totalQuantity)
+            .subtotal(subtotal)
+            .totalDiscount(subtotal.subtract(finalTotal))
+            .finalTotal(finalTotal)
+            .stats(stats)
             .build();
     }
-    
-    private boolean isAccessory(ComponentType componentType) {
-        return componentType == ComponentType.MONITOR ||
-               componentType == ComponentType.KEYBOARD ||
-               componentType == ComponentType.MOUSE ||
-               componentType == ComponentType.HEADSET;
-    }
-}
\ No newline at end of file
+}
@@ -8,11 +8,13 @@ import com.example.ComputerStore.dto.response.ProductFilterResponseDto;
 import com.example.ComputerStore.entity.Category;
 import com.example.ComputerStore.entity.Product;
 import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.event.CategoryChangedEvent;
 import com.example.ComputerStore.repository.CategoryRepository;
 import com.example.ComputerStore.repository.ProductRepository;
 import com.example.ComputerStore.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +29,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public CategoryResponseDto createCategory(CreateCategoryDto createCategoryDto) {
@@ -86,10 +89,14 @@ public class CategoryServiceImpl implements CategoryService {
         }
         
         // Cập nhật thông tin
+        boolean renamed = !Objects.equals(category.getName(), updateCategoryDto.getName());
         category.setName(updateCategoryDto.getName());
         category.setImage(updateCategoryDto.getImage());
         
         Category updatedCategory = categoryRepository.save(category);
+        if (renamed) {
+            eventPublisher.publishEvent(new CategoryChangedEvent(updatedCategory.getId()));
+        }
         log.info("Category updated successfully: {}", updatedCategory.getId());
         
         return convertToCategoryResponse(updatedCategory);
@@ -0,0 +1,154 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.dto.request.CheckoutDto;
+import com.example.ComputerStore.dto.response.CheckoutResponseDto;
+import com.example.ComputerStore.entity.Cart;
+import com.example.ComputerStore.entity.Payment;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.enumeric.OrderTaskType;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import com.example.ComputerStore.event.CartChangedEvent;
+import com.example.ComputerStore.repository.CartRepository;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.CartWriteBehindStore;
+import com.example.ComputerStore.service.CheckoutService;
+import com.example.ComputerStore.service.OrderTaskQueue;
+import com.example.ComputerStore.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Đặt hàng với số câu lệnh cố định theo đơn: một query đọc giỏ kèm product, một query khóa các dòng giữ hàng,
+ * một UPDATE có điều kiện cho mỗi product còn thiếu / thừa hàng giữ, insert payments theo JDBC batch
+ * và một DELETE cho giỏ hàng; mail xác nhận được ghi vào hàng đợi order_tasks cùng transaction. Các lần checkout của cùng user được xếp hàng bằng khóa trên dòng user.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final PaymentRepository paymentRepository;
+    private final StockReservationService stockReservationService;
+    private final CartWriteBehindStore cartWriteBehindStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderTaskQueue orderTaskQueue;
+
+    @Override
+    public CheckoutResponseDto checkout(UUID userId, CheckoutDto checkoutDto) {
+        log.info("Checking out cart for user: {}", userId);
+
+        cartWriteBehindStore.flushUser(userId);
+        userRepository.lockById(userId)
+            .orElseThrow(() -> new RuntimeException("User không tồn tại với ID: " + userId));
+
+        List<Cart> cartItems = cartRepository.findByUserIdWithProduct(userId);
+        if (cartItems.isEmpty()) {
+            throw new RuntimeException("Giỏ hàng trống");
+        }
+
+        String fullName = resolveShippingField(checkoutDto.getFullName(), cartItems, Cart::getFullName);
+        String phone = resolveShippingField(checkoutDto.getPhone(), cartItems, Cart::getPhone);
+        String address = resolveShippingField(checkoutDto.getAddress(), cartItems, Cart::getAddress);
+        if (fullName == null || phone == null || address == null) {
+            throw new RuntimeException("Vui lòng cập nhật thông tin giao hàng trước khi đặt hàng");
+        }
+
+        // Trừ kho cho mọi dòng trong một lần; thiếu hàng ở bất kỳ dòng nào thì rollback cả đơn
+        Map<UUID, Integer> quantities = new HashMap<>();
+        cartItems.forEach(cartItem -> quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum));
+        stockReservationService.commitAll(userId, ReservationSource.CART, quantities);
+
+        // Tính tiền theo giá hiện tại của product, không dùng totalPrice có thể đã cũ trong giỏ
+        String idPayment = generateIdPayment();
+        String typePayment = checkoutDto.getTypePayment().name();
+        List<Payment> payments = cartItems.stream()
+            .map(cartItem -> {
+                Product product = cartItem.getProduct();
+                BigDecimal unitPrice = Product.calculateFinalPrice(product.getPrice(), product.getDiscount());
+                return Payment.builder()
+                    .idPayment(idPayment)
+                    .quantity(cartItem.getQuantity())
+                    .fullName(fullName)
+                    .phone(phone)
+                    .address(address)
+                    .totalPrice(unitPrice.multiply(BigDecimal.valueOf(cartItem.getQuantity())))
+                    .status(PaymentStatus.PENDING)
+                    .typePayment(typePayment)
+                    .user(cartItem.getUser())
+                    .product(product)
+                    .build();
+            })
+            .toList();
+        paymentRepository.saveAll(payments);
+
+        cartRepository.deleteAllInBatch(cartItems);
+        eventPublisher.publishEvent(new CartChangedEvent(userId));
+
+        // Mail xác nhận gửi nền qua hàng đợi, request trả về ngay khi đơn commit
+        orderTaskQueue.enqueue(OrderTaskType.ORDER_CONFIRMATION_MAIL, idPayment, null);
+
+        CheckoutResponseDto response = convertToResponseDto(idPayment, typePayment, payments);
+        log.info("Order {} placed for user {}: {} items, total {}",
+            idPayment, userId, response.getTotalItems(), response.getTotalPrice());
+        return response;
+    }
+
+    // Helper methods
+    private String resolveShippingField(String requested, List<Cart> cartItems,
+                                        Function<Cart, String> field) {
+        if (requested != null && !requested.isBlank()) {
+            return requested.trim();
+        }
+        return cartItems.stream()
+            .map(field)
+            .filter(value -> value != null && !value.isBlank())
+            .findFirst()
+            .orElse(null);
+    }
+
+    private String generateIdPayment() {
+        return "ORD" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase(Locale.ROOT);
+    }
+
+    private CheckoutResponseDto convertToResponseDto(String idPayment, String typePayment, List<Payment> payments) {
+        Payment first = payments.get(0);
+        List<CheckoutResponseDto.CheckoutItemDto> items = payments.stream()
+            .map(payment -> CheckoutResponseDto.CheckoutItemDto.builder()
+                .paymentId(payment.getId())
+                .productId(payment.getProduct().getId())
+                .productName(payment.getProduct().getName())
+                .quantity(payment.getQuantity())
+                .totalPrice(payment.getTotalPrice())
+                .build())
+            .toList();
+
+        return CheckoutResponseDto.builder()
+            .idPayment(idPayment)
+            .typePayment(typePayment)
+            .status(first.getStatus())
+            .totalItems(payments.size())
+            .totalQuantity(payments.stream().mapToInt(Payment::getQuantity).sum())
+            .totalPrice(payments.stream().map(Payment::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add))
+            .fullName(first.getFullName())
+            .phone(first.getPhone())
+            .address(first.getAddress())
+            .items(items)
+            .build();
+    }
+}
@@ -1,17 +1,18 @@
 package com.example.ComputerStore.service.impl;
 
 import com.example.ComputerStore.dto.response.ApiResponse;
-import com.example.ComputerStore.entity.Category;
-import com.example.ComputerStore.entity.Payment;
 import com.example.ComputerStore.entity.Product;
-import com.example.ComputerStore.entity.User;
 import com.example.ComputerStore.enumeric.PaymentStatus;
 import com.example.ComputerStore.repository.BlogRepository;
 import com.example.ComputerStore.repository.CategoryRepository;
 import com.example.ComputerStore.repository.PaymentRepository;
 import com.example.ComputerStore.repository.ProductRepository;
 import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.DashboardQueryRunner;
 import com.example.ComputerStore.service.DashboardService;
+import com.example.ComputerStore.service.DashboardSnapshotCache;
+import com.example.ComputerStore.service.PaymentRollupService;
+import com.example.ComputerStore.service.PaymentSketchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -22,79 +23,101 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardServiceImpl implements DashboardService {
 
+    // Các kỳ thống kê hỗ trợ, kỳ khác được coi là "month"
+    private static final Set<String> PERIODS = Set.of("day", "week", "month", "quarter", "year");
+
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final BlogRepository blogRepository;
     private final PaymentRepository paymentRepository;
+    private final PaymentRollupService paymentRollupService;
+    private final DashboardQueryRunner dashboardQueryRunner;
+    private final DashboardSnapshotCache dashboardSnapshotCache;
+    private final PaymentSketchService paymentSketchService;
 
+    // Mỗi endpoint đọc qua snapshot cache (stale-while-revalidate), chỉ tính lại khi snapshot hết hạn
     @Override
     public ApiResponse<Map<String, Object>> getDashboardStats() {
+        return dashboardSnapshotCache.get("stats", this::computeDashboardStats);
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getRevenueStats(String period) {
+        String key = normalizePeriod(period);
+        return dashboardSnapshotCache.get("revenue:" + key, () -> computeRevenueStats(key));
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getUserStats() {
+        return dashboardSnapshotCache.get("users", this::computeUserStats);
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getProductStats() {
+        return dashboardSnapshotCache.get("products", this::computeProductStats);
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getOrderStats() {
+        return dashboardSnapshotCache.get("orders", this::computeOrderStats);
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getPieChartData() {
+        return dashboardSnapshotCache.get("pie-chart", this::computePieChartData);
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getBuyerStats(String period) {
+        String key = normalizePeriod(period);
+        return dashboardSnapshotCache.get("buyers:" + key, () -> computeBuyerStats(key));
+    }
+
+    @Override
+    public ApiResponse<Map<String, Object>> getOrderValueStats(String period) {
+        String key = normalizePeriod(period);
+        return dashboardSnapshotCache.get("order-values:" + key, () -> computeOrderValueStats(key));
+    }
+
+    private ApiResponse<Map<String, Object>> computeDashboardStats() {
         try {
-            Map<String, Object> stats = new HashMap<>();
+            // Các query độc lập với nhau, chạy song song
+            Map<String, Supplier<?>> queries = new LinkedHashMap<>();
             
             // Thống kê cơ bản
-            long totalUsers = userRepository.count();
-            long totalProducts = productRepository.count();
-            long totalCategories = categoryRepository.count();
-            long totalBlogs = blogRepository.count();
-            long totalPayments = paymentRepository.count();
-            
-            stats.put("totalUsers", totalUsers);
-            stats.put("totalProducts", totalProducts);
-            stats.put("totalCategories", totalCategories);
-            stats.put("totalBlogs", totalBlogs);
-            stats.put("totalPayments", totalPayments);
-            
-            // Thống kê doanh thu từ payments
-            List<Payment> allPayments = paymentRepository.findAll();
-            BigDecimal totalRevenue = allPayments.stream()
-                    .filter(p -> p.getStatus() == PaymentStatus.COMPLETED)
-                    .map(Payment::getTotalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            stats.put("totalRevenue", totalRevenue);
-            
-            // Thống kê payment theo trạng thái
-            Map<String, Long> paymentStatusStats = new HashMap<>();
-            for (PaymentStatus status : PaymentStatus.values()) {
-                long count = paymentRepository.countByStatus(status);
-                paymentStatusStats.put(status.name(), count);
-            }
-            stats.put("paymentStatusStats", paymentStatusStats);
+            queries.put("totalUsers", userRepository::count);
+            queries.put("totalProducts", productRepository::count);
+            queries.put("totalCategories", categoryRepository::count);
+            queries.put("totalBlogs", blogRepository::count);
+            queries.put("totalPayments", paymentRepository::count);
+            
+            // Tổng doanh thu (SUM trong DB)
+            queries.put("totalRevenue", paymentRepository::getTotalRevenue);
             
-            // Thống kê user theo admin role (manual count)
-            List<User> allUsers = userRepository.findAll();
-            long adminUsers = allUsers.stream().filter(u -> "1".equals(u.getIsAdmin())).count();
-            long regularUsers = allUsers.stream().filter(u -> "0".equals(u.getIsAdmin())).count();
+            // Thống kê payment theo trạng thái (một query GROUP BY)
+            queries.put("paymentStatusStats", this::getPaymentStatusCounts);
             
-            Map<String, Long> userRoleStats = new HashMap<>();
-            userRoleStats.put("ADMIN", adminUsers);
-            userRoleStats.put("USER", regularUsers);
-            stats.put("userRoleStats", userRoleStats);
+            // Thống kê user theo admin role
+            queries.put("userRoleStats", this::getUserRoleCounts);
             
             // Payment gần đây (latest 10)
-            List<Payment> recentPayments = paymentRepository.findAll()
-                    .stream()
-                    .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
-                    .limit(10)
-                    .toList();
-            stats.put("recentPayments", recentPayments);
+            queries.put("recentPayments", paymentRepository::findTop10ByOrderByCreatedAtDesc);
             
             // Users đăng ký gần đây (latest 10)
-            List<User> recentUsers = userRepository.findAll()
-                    .stream()
-                    .sorted((u1, u2) -> u2.getCreatedAt().compareTo(u1.getCreatedAt()))
-                    .limit(10)
-                    .toList();
-            stats.put("recentUsers", recentUsers);
+            queries.put("recentUsers", userRepository::findTop10ByOrderByCreatedAtDesc);
+            
+            Map<String, Object> stats = collect(dashboardQueryRunner.run(queries));
             
             return ApiResponse.<Map<String, Object>>builder()
                     .success(true)
@@ -110,53 +133,32 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
-    @Override
-    public ApiResponse<Map<String, Object>> getRevenueStats(String period) {
+    private ApiResponse<Map<String, Object>> computeRevenueStats(String period) {
         try {
             Map<String, Object> revenueStats = new HashMap<>();
             LocalDate endDate = LocalDate.now();
-            LocalDate startDate;
-            
-            switch (period.toLowerCase()) {
-                case "week":
-                    startDate = getStartOfWeek();
-                    break;
-                case "month":
-                    startDate = getStartOfMonth();
-                    break;
-                case "quarter":
-                    startDate = getStartOfQuarter();
-                    break;
-                case "year":
-                    startDate = getStartOfYear();
-                    break;
-                default:
-                    startDate = getStartOfMonth(); // Default to current month
-            }
-            
-            // Doanh thu theo khoảng thời gian (manual filtering)
-            List<Payment> allPayments = paymentRepository.findAll();
-            List<Payment> payments = allPayments.stream()
-                    .filter(p -> p.getStatus() == PaymentStatus.COMPLETED)
-                    .filter(p -> {
-                        LocalDate paymentDate = p.getCreatedAt().toLocalDate();
-                        return !paymentDate.isBefore(startDate) && !paymentDate.isAfter(endDate);
-                    })
-                    .toList();
+            LocalDate startDate = getStartOfPeriod(period);
             
-            BigDecimal totalRevenue = payments.stream()
-                    .map(Payment::getTotalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Doanh thu theo khoảng thời gian (đọc từ bảng tổng hợp payment_rollups)
+            PaymentRollupService.Summary summary = paymentRollupService.summarize(startDate, endDate);
+            BigDecimal totalRevenue = summary.completed().revenue();
+            long totalPayments = summary.completed().orders();
             
             revenueStats.put("totalRevenue", totalRevenue);
             revenueStats.put("period", period);
             revenueStats.put("startDate", startDate);
             revenueStats.put("endDate", endDate);
-            revenueStats.put("totalPayments", payments.size());
+            revenueStats.put("totalPayments", totalPayments);
+            revenueStats.put("totalQuantity", summary.completed().quantity());
+            revenueStats.put("revenueByPaymentType", summary.completedByPaymentType());
+            revenueStats.put("revenueByComponentType", summary.completedByComponentType());
+            revenueStats.put("statusStats", summary.byStatus());
+            revenueStats.put("granularity", summary.granularity());
+            revenueStats.put("series", summary.series());
             
             // Doanh thu trung bình mỗi đơn
-            BigDecimal avgPaymentValue = payments.size() > 0 ? 
-                totalRevenue.divide(BigDecimal.valueOf(payments.size()), 2, RoundingMode.HALF_UP) : 
+            BigDecimal avgPaymentValue = totalPayments > 0 ? 
+                totalRevenue.divide(BigDecimal.valueOf(totalPayments), 2, RoundingMode.HALF_UP) : 
                 BigDecimal.ZERO;
             revenueStats.put("avgPaymentValue", avgPaymentValue);
             
@@ -174,38 +176,23 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
-    @Override
-    public ApiResponse<Map<String, Object>> getUserStats() {
+    private ApiResponse<Map<String, Object>> computeUserStats() {
         try {
-            Map<String, Object> userStats = new HashMap<>();
+            Map<String, Supplier<?>> queries = new LinkedHashMap<>();
             
             // Tổng số users
-            long totalUsers = userRepository.count();
-            userStats.put("totalUsers", totalUsers);
+            queries.put("totalUsers", userRepository::count);
             
-            // Users theo role (admin/user) - manual filtering
-            List<User> allUsers = userRepository.findAll();
-            long adminUsers = allUsers.stream().filter(u -> "1".equals(u.getIsAdmin())).count();
-            long regularUsers = allUsers.stream().filter(u -> "0".equals(u.getIsAdmin())).count();
+            // Users theo role (admin/user)
+            queries.put("roleStats", this::getUserRoleCounts);
             
-            Map<String, Long> roleStats = new HashMap<>();
-            roleStats.put("ADMIN", adminUsers);
-            roleStats.put("USER", regularUsers);
-            userStats.put("roleStats", roleStats);
+            // Users đăng ký trong tuần/tháng
+            LocalDateTime startOfWeek = getStartOfWeek().atStartOfDay();
+            LocalDateTime startOfMonth = getStartOfMonth().atStartOfDay();
+            queries.put("usersThisWeek", () -> userRepository.countByCreatedAtGreaterThanEqual(startOfWeek));
+            queries.put("usersThisMonth", () -> userRepository.countByCreatedAtGreaterThanEqual(startOfMonth));
             
-            // Users đăng ký trong tuần/tháng (reuse existing list)
-            LocalDate startOfWeek = getStartOfWeek();
-            LocalDate startOfMonth = getStartOfMonth();
-            
-            long usersThisWeek = allUsers.stream()
-                    .filter(u -> u.getCreatedAt().toLocalDate().isAfter(startOfWeek.minusDays(1)))
-                    .count();
-            long usersThisMonth = allUsers.stream()
-                    .filter(u -> u.getCreatedAt().toLocalDate().isAfter(startOfMonth.minusDays(1)))
-                    .count();
-            
-            userStats.put("usersThisWeek", usersThisWeek);
-            userStats.put("usersThisMonth", usersThisMonth);
+            Map<String, Object> userStats = collect(dashboardQueryRunner.run(queries));
             
             return ApiResponse.<Map<String, Object>>builder()
                     .success(true)
@@ -221,8 +208,7 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
-    @Override
-    public ApiResponse<Map<String, Object>> getProductStats() {
+    private ApiResponse<Map<String, Object>> computeProductStats() {
         try {
             Map<String, Object> productStats = new HashMap<>();
             
@@ -230,23 +216,12 @@ public class DashboardServiceImpl implements DashboardService {
             long totalProducts = productRepository.count();
             productStats.put("totalProducts", totalProducts);
             
-            // Sản phẩm theo category (manual count)
-            List<Category> categories = categoryRepository.findAll();
-            List<Product> allProducts = productRepository.findAll();
-            Map<String, Long> productsByCategory = new HashMap<>();
-            for (Category category : categories) {
-                long count = allProducts.stream()
-                        .filter(p -> p.getCategory().getId().equals(category.getId()))
-                        .count();
-                productsByCategory.put(category.getName(), count);
-            }
-            productStats.put("productsByCategory", productsByCategory);
+            // Sản phẩm theo category (COUNT ... GROUP BY)
+            productStats.put("productsByCategory", getProductCountsByCategory());
             
-            // Sản phẩm mới (7 ngày qua) - manual filtering
+            // Sản phẩm mới (7 ngày qua)
             LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-            List<Product> newProducts = allProducts.stream()
-                    .filter(p -> p.getCreatedAt().isAfter(sevenDaysAgo))
-                    .toList();
+            List<Product> newProducts = productRepository.findByCreatedAtAfterOrderByCreatedAtDesc(sevenDaysAgo);
             productStats.put("newProducts", newProducts.size());
             productStats.put("newProductsList", newProducts);
             
@@ -264,57 +239,28 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
-    @Override
-    public ApiResponse<Map<String, Object>> getOrderStats() {
+    private ApiResponse<Map<String, Object>> computeOrderStats() {
         try {
-            Map<String, Object> paymentStats = new HashMap<>();
+            Map<String, Supplier<?>> queries = new LinkedHashMap<>();
             
             // Tổng số payments
-            long totalPayments = paymentRepository.count();
-            paymentStats.put("totalPayments", totalPayments);
+            queries.put("totalPayments", paymentRepository::count);
             
             // Payments theo trạng thái
-            Map<String, Long> statusStats = new HashMap<>();
-            for (PaymentStatus status : PaymentStatus.values()) {
-                long count = paymentRepository.countByStatus(status);
-                statusStats.put(status.name(), count);
-            }
-            paymentStats.put("statusStats", statusStats);
+            queries.put("statusStats", this::getPaymentStatusCounts);
             
-            // Payments hôm nay (manual filtering)
+            // Payments hôm nay / tuần này / tháng này (đọc từ bảng tổng hợp payment_rollups)
             LocalDate today = LocalDate.now();
-            List<Payment> allPayments = paymentRepository.findAll();
-            List<Payment> paymentsToday = allPayments.stream()
-                    .filter(p -> p.getCreatedAt().toLocalDate().equals(today))
-                    .toList();
-            paymentStats.put("paymentsToday", paymentsToday.size());
-            
-            // Payments tuần này (manual filtering)
             LocalDate startOfWeek = getStartOfWeek();
-            List<Payment> paymentsThisWeek = allPayments.stream()
-                    .filter(p -> {
-                        LocalDate paymentDate = p.getCreatedAt().toLocalDate();
-                        return !paymentDate.isBefore(startOfWeek) && !paymentDate.isAfter(LocalDate.now());
-                    })
-                    .toList();
-            paymentStats.put("paymentsThisWeek", paymentsThisWeek.size());
-            
-            // Payments tháng này (manual filtering)
             LocalDate startOfMonth = getStartOfMonth();
-            List<Payment> paymentsThisMonth = allPayments.stream()
-                    .filter(p -> {
-                        LocalDate paymentDate = p.getCreatedAt().toLocalDate();
-                        return !paymentDate.isBefore(startOfMonth) && !paymentDate.isAfter(LocalDate.now());
-                    })
-                    .toList();
-            paymentStats.put("paymentsThisMonth", paymentsThisMonth.size());
-            
-            // Payments gần đây (manual sorting and limit)
-            List<Payment> recentPayments = allPayments.stream()
-                    .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
-                    .limit(20)
-                    .toList();
-            paymentStats.put("recentPayments", recentPayments);
+            queries.put("paymentsToday", () -> paymentRollupService.summarize(today, today).totalOrders());
+            queries.put("paymentsThisWeek", () -> paymentRollupService.summarize(startOfWeek, today).totalOrders());
+            queries.put("paymentsThisMonth", () -> paymentRollupService.summarize(startOfMonth, today).totalOrders());
+            
+            // Payments gần đây (ORDER BY ... LIMIT 20)
+            queries.put("recentPayments", paymentRepository::findTop20ByOrderByCreatedAtDesc);
+            
+            Map<String, Object> paymentStats = collect(dashboardQueryRunner.run(queries));
             
             return ApiResponse.<Map<String, Object>>builder()
                     .success(true)
@@ -330,7 +276,157 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
+    private ApiResponse<Map<String, Object>> computeBuyerStats(String period) {
+        try {
+            Map<String, Object> buyerStats = new HashMap<>();
+            LocalDate endDate = LocalDate.now();
+            LocalDate startDate = getStartOfPeriod(period);
+            
+            // Số người mua phân biệt ước lượng bằng HyperLogLog (sai số chuẩn ~1.6%)
+            PaymentSketchService.Summary summary = paymentSketchService.summarize(startDate, endDate);
+            buyerStats.put("period", period);
+            buyerStats.put("startDate", startDate);
+            buyerStats.put("endDate", endDate);
+            buyerStats.put("distinctBuyers", summary.distinctBuyers());
+            buyerStats.put("buyersPerDay", summary.buyersPerDay());
+            buyerStats.put("orders", summary.orders());
+            buyerStats.put("approximate", true);
+            
+            return ApiResponse.<Map<String, Object>>builder()
+                    .success(true)
+                    .message("Lấy thống kê người mua thành công")
+                    .data(buyerStats)
+                    .build();
+                    
+        } catch (Exception e) {
+            return ApiResponse.<Map<String, Object>>builder()
+                    .success(false)
+                    .message("Lỗi khi lấy thống kê người mua: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    private ApiResponse<Map<String, Object>> computeOrderValueStats(String period) {
+        try {
+            Map<String, Object> orderValueStats = new HashMap<>();
+            LocalDate endDate = LocalDate.now();
+            LocalDate startDate = getStartOfPeriod(period);
+            
+            // Phân vị giá trị đơn hàng từ quantile sketch (sai lệch tương đối tối đa relativeAccuracy)
+            PaymentSketchService.Summary summary = paymentSketchService.summarize(startDate, endDate);
+            orderValueStats.put("period", period);
+            orderValueStats.put("startDate", startDate);
+            orderValueStats.put("endDate", endDate);
+            orderValueStats.put("orders", summary.orders());
+            orderValueStats.put("p50", summary.p50());
+            orderValueStats.put("p90", summary.p90());
+            orderValueStats.put("p99", summary.p99());
+            orderValueStats.put("relativeAccuracy", summary.relativeAccuracy());
+            orderValueStats.put("approximate", true);
+            
+            return ApiResponse.<Map<String, Object>>builder()
+                    .success(true)
+                    .message("Lấy thống kê giá trị đơn hàng thành công")
+                    .data(orderValueStats)
+                    .build();
+                    
+        } catch (Exception e) {
+            return ApiResponse.<Map<String, Object>>builder()
+                    .success(false)
+                    .message("Lỗi khi lấy thống kê giá trị đơn hàng: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    private ApiResponse<Map<String, Object>> computePieChartData() {
+        try {
+            Map<String, Supplier<?>> queries = new LinkedHashMap<>();
+            
+            // Tỉ lệ payment theo trạng thái
+            queries.put("paymentStatusStats", this::getPaymentStatusCounts);
+            
+            // Tỉ lệ sản phẩm theo category
+            queries.put("productsByCategory", this::getProductCountsByCategory);
+            
+            // Tỉ lệ doanh thu tháng này theo loại linh kiện và hình thức thanh toán (bảng tổng hợp)
+            queries.put("revenueThisMonth", () -> paymentRollupService.summarize(getStartOfMonth(), LocalDate.now()));
+            
+            Map<String, Object> pieChartData = collect(dashboardQueryRunner.run(queries));
+            if (pieChartData.remove("revenueThisMonth") instanceof PaymentRollupService.Summary summary) {
+                pieChartData.put("revenueByComponentType", summary.completedByComponentType());
+                pieChartData.put("revenueByPaymentType", summary.completedByPaymentType());
+            }
+            
+            return ApiResponse.<Map<String, Object>>builder()
+                    .success(true)
+                    .message("Lấy dữ liệu biểu đồ tròn thành công")
+                    .data(pieChartData)
+                    .build();
+                    
+        } catch (Exception e) {
+            return ApiResponse.<Map<String, Object>>builder()
+                    .success(false)
+                    .message("Lỗi khi lấy dữ liệu biểu đồ tròn: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    // Kết quả fan-out; partial = true khi có query bị timeout / lỗi và được bỏ qua (liệt kê trong failedQueries)
+    private Map<String, Object> collect(DashboardQueryRunner.Result result) {
+        Map<String, Object> stats = new HashMap<>(result.values());
+        stats.put("partial", result.isPartial());
+        stats.put("failedQueries", result.failed());
+        return stats;
+    }
+
+    // Số payment theo từng trạng thái, trạng thái chưa có payment = 0
+    private Map<String, Long> getPaymentStatusCounts() {
+        Map<String, Long> statusCounts = new HashMap<>();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            statusCounts.put(status.name(), 0L);
+        }
+        for (Object[] row : paymentRepository.getOrderStatusStats()) {
+            statusCounts.put(((PaymentStatus) row[0]).name(), ((Number) row[1]).longValue());
+        }
+        return statusCounts;
+    }
+
+    private Map<String, Long> getProductCountsByCategory() {
+        Map<String, Long> productsByCategory = new HashMap<>();
+        for (Object[] row : productRepository.countProductsGroupedByCategory()) {
+            productsByCategory.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return productsByCategory;
+    }
+
+    private Map<String, Long> getUserRoleCounts() {
+        Map<String, Long> roleCounts = new HashMap<>();
+        roleCounts.put("ADMIN", userRepository.countByIsAdmin("1"));
+        roleCounts.put("USER", userRepository.countByIsAdmin("0"));
+        return roleCounts;
+    }
+
     // Helper methods for date calculations
+    private String normalizePeriod(String period) {
+        String normalized = period == null ? "month" : period.toLowerCase();
+        return PERIODS.contains(normalized) ? normalized : "month";
+    }
+
+    private LocalDate getStartOfPeriod(String period) {
+        switch (period) {
+            case "day":
+                return LocalDate.now();
+            case "week":
+                return getStartOfWeek();
+            case "quarter":
+                return getStartOfQuarter();
+            case "year":
+                return getStartOfYear();
+            default:
+                return getStartOfMonth(); // Default to current month
+        }
+    }
+
     private LocalDate getStartOfWeek() {
         return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
     }
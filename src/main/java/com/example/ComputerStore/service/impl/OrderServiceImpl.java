@@ -0,0 +1,42 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.entity.Payment;
+import com.example.ComputerStore.enumeric.OrderTaskType;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.service.OrderService;
+import com.example.ComputerStore.service.OrderTaskQueue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderServiceImpl implements OrderService {
+
+    private final PaymentRepository paymentRepository;
+    private final OrderTaskQueue orderTaskQueue;
+
+    @Override
+    public void requestStatusChange(String idPayment, PaymentStatus status) {
+        log.info("Requesting status change of order {} to {}", idPayment, status);
+
+        List<Payment> payments = paymentRepository.findAllByIdPayment(idPayment);
+        if (payments.isEmpty()) {
+            throw new RuntimeException("Đơn hàng không tồn tại: " + idPayment);
+        }
+
+        // Kiểm tra sớm để báo lỗi cho request; worker kiểm tra lại trên trạng thái lúc chạy
+        PaymentStatus current = payments.get(0).getStatus();
+        if (!current.canTransitionTo(status)) {
+            throw new RuntimeException("Không thể chuyển đơn hàng từ trạng thái " + current + " sang " + status);
+        }
+
+        orderTaskQueue.enqueue(OrderTaskType.CHANGE_STATUS, idPayment, status);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.dto.request.CreateProductPreviewDto;
+import com.example.ComputerStore.dto.response.ProductPreviewResponseDto;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.entity.ProductPreview;
+import com.example.ComputerStore.entity.User;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.ProductPreviewRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.ProductPreviewService;
+import com.example.ComputerStore.service.ProductRatingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductPreviewServiceImpl implements ProductPreviewService {
+
+    private final ProductPreviewRepository productPreviewRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ProductRatingService productRatingService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public ProductPreviewResponseDto createPreview(UUID userId, CreateProductPreviewDto createProductPreviewDto) {
+        UUID productId = createProductPreviewDto.getProductId();
+        log.info("User {} reviewing product {}", userId, productId);
+
+        if (productPreviewRepository.existsByUserIdAndProductId(userId, productId)) {
+            throw new RuntimeException("Bạn đã đánh giá sản phẩm này");
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User không tồn tại"));
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+
+        ProductPreview preview = ProductPreview.builder()
+                .user(user)
+                .product(product)
+                .rating(createProductPreviewDto.getRating())
+                .content(createProductPreviewDto.getContent())
+                .build();
+        ProductPreview savedPreview;
+        try {
+            // Flush ngay để hai request đồng thời của cùng user bị unique constraint chặn tại đây
+            savedPreview = productPreviewRepository.saveAndFlush(preview);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Bạn đã đánh giá sản phẩm này");
+        }
+
+        // Cập nhật tổng hợp rating trong cùng transaction
+        productRatingService.applyRating(productId, savedPreview.getRating(), 1);
+        eventPublisher.publishEvent(ProductChangedEvent.ratingChanged(productId));
+
+        return convertToResponseDto(savedPreview);
+    }
+
+    @Override
+    public void deletePreview(UUID userId, UUID previewId) {
+        ProductPreview preview = productPreviewRepository.findById(previewId)
+                .orElseThrow(() -> new RuntimeException("Đánh giá không tồn tại"));
+
+        if (!preview.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Bạn không có quyền xóa đánh giá này");
+        }
+
+        UUID productId = preview.getProduct().getId();
+        productPreviewRepository.delete(preview);
+        productRatingService.applyRating(productId, preview.getRating(), -1);
+        eventPublisher.publishEvent(ProductChangedEvent.ratingChanged(productId));
+        log.info("User {} deleted review {} of product {}", userId, previewId, productId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductPreviewResponseDto> getPreviewsByProduct(UUID productId, Pageable pageable) {
+        Pageable newestFirst = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "createdAt"));
+        return productPreviewRepository.findByProductId(productId, newestFirst)
+                .map(this::convertToResponseDto);
+    }
+
+    // Helper methods
+    private ProductPreviewResponseDto convertToResponseDto(ProductPreview preview) {
+        return ProductPreviewResponseDto.builder()
+                .id(preview.getId())
+                .productId(preview.getProduct().getId())
+                .userId(preview.getUser().getId())
+                .fullName(preview.getUser().getFullName())
+                .rating(preview.getRating())
+                .content(preview.getContent())
+                .createdAt(preview.getCreatedAt())
+                .build();
+    }
+}
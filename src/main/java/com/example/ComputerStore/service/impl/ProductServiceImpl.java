@@ -2,22 +2,40 @@ package com.example.ComputerStore.service.impl;
 
 import com.example.ComputerStore.dto.request.CreateProductDto;
 import com.example.ComputerStore.dto.request.UpdateProductDto;
+import com.example.ComputerStore.dto.response.CursorPageResponseDto;
+import com.example.ComputerStore.dto.response.FacetedSearchResponseDto;
 import com.example.ComputerStore.dto.response.ProductResponseDto;
+import com.example.ComputerStore.dto.response.ProductSnapshot;
+import com.example.ComputerStore.dto.response.SuggestionDto;
 import com.example.ComputerStore.entity.Category;
 import com.example.ComputerStore.entity.Product;
 import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.event.ProductChangedEvent;
 import com.example.ComputerStore.repository.CategoryRepository;
 import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.service.ProductCatalogCache;
+import com.example.ComputerStore.service.ProductFacetIndex;
+import com.example.ComputerStore.service.ProductRatingService;
+import com.example.ComputerStore.service.ProductSearchIndex;
+import com.example.ComputerStore.service.ProductSnapshotStore;
+import com.example.ComputerStore.service.ProductSuggestIndex;
+import com.example.ComputerStore.util.TextNormalizer;
 import com.example.ComputerStore.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,6 +46,16 @@ public class ProductServiceImpl implements ProductService {
     
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSnapshotStore productSnapshotStore;
+    private final ProductRatingService productRatingService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.home.products-per-category:12}")
+    private int productsPerCategory;
     
     @Override
     @Transactional
@@ -65,35 +93,66 @@ public class ProductServiceImpl implements ProductService {
         }
         
         Product savedProduct = productRepository.save(productBuilder.build());
+        eventPublisher.publishEvent(ProductChangedEvent.created(savedProduct));
         log.info("Product created successfully with ID: {}", savedProduct.getId());
         
-        return convertToResponseDto(savedProduct);
+        return productSnapshotStore.snapshotOf(savedProduct).getDto();
     }
     
     @Override
-    public Page<ProductResponseDto> getAllProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findAll(pageable);
-        List<ProductResponseDto> productDtos = products.getContent().stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
-        
-        return new PageImpl<>(productDtos, pageable, products.getTotalElements());
+    public Page<ProductSnapshot> getAllProducts(Pageable pageable) {
+        String cacheKey = "all:" + pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+        return productCatalogCache.getPage(cacheKey, () -> {
+            Page<Product> products = productRepository.findAll(pageable);
+            List<ProductSnapshot> snapshots = productSnapshotStore.snapshotsOf(products.getContent());
+            
+            return new PageImpl<>(snapshots, pageable, products.getTotalElements());
+        });
     }
     
     @Override
-    public List<ProductResponseDto> getAllProducts() {
-        List<Product> products = productRepository.findAllByOrderByCreatedAtDesc();
-        return products.stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+    public List<ProductSnapshot> getAllProducts() {
+        return productCatalogCache.getList("all", () -> productRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(productSnapshotStore::snapshotOf)
+                .collect(Collectors.toList()));
     }
     
     @Override
-    public ProductResponseDto getProductById(UUID id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+    public CursorPageResponseDto<ProductSnapshot> getProductsByCursor(String cursor, int size) {
+        // Lấy dư 1 phần tử để biết còn trang sau hay không, không cần COUNT
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Product> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findCatalogFirstPage(limit);
+        } else {
+            CatalogCursor position = decodeCursor(cursor);
+            products = productRepository.findCatalogPageAfter(position.createdAt(), position.id(), limit);
+        }
+        
+        boolean hasMore = products.size() > size;
+        List<Product> pageContent = hasMore ? products.subList(0, size) : products;
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = pageContent.get(pageContent.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
         
-        return convertToResponseDto(product);
+        return CursorPageResponseDto.<ProductSnapshot>builder()
+                .items(pageContent.stream().map(productSnapshotStore::snapshotOf).collect(Collectors.toList()))
+                .size(pageContent.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+    
+    @Override
+    public ProductResponseDto getProductById(UUID id) {
+        return productCatalogCache.getProduct(id, productId -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            
+            return productSnapshotStore.snapshotOf(product).getDto();
+        });
     }
     
     @Override
@@ -143,9 +202,10 @@ public class ProductServiceImpl implements ProductService {
         if (updateProductDto.getCoolers() != null) product.setCoolers(updateProductDto.getCoolers());
         
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(updatedProduct));
         log.info("Product updated successfully");
         
-        return convertToResponseDto(updatedProduct);
+        return productSnapshotStore.snapshotOf(updatedProduct).getDto();
     }
     
     @Override
@@ -157,26 +217,29 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
         productRepository.delete(product);
+        productRatingService.deleteStats(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         log.info("Product deleted successfully");
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Object> getProductsByCategories() {
+        // Load categories trước để category của từng product được lấy từ persistence context, không query lại
         List<Category> categories = categoryRepository.findAll();
+        Map<UUID, List<ProductSnapshot>> productsByCategory = productRepository
+                .findTopProductsPerCategory(productsPerCategory).stream()
+                .collect(Collectors.groupingBy(product -> product.getCategory().getId(),
+                        Collectors.mapping(productSnapshotStore::snapshotOf, Collectors.toList())));
         
         return categories.stream()
                 .map(category -> {
-                    List<Product> products = productRepository.findByCategoryId(category.getId());
-                    List<ProductResponseDto> productDtos = products.stream()
-                            .map(this::convertToResponseDto)
-                            .collect(Collectors.toList());
-                    
                     Map<String, Object> categoryData = new HashMap<>();
                     categoryData.put("category", Map.of(
                             "id", category.getId(),
                             "name", category.getName()
                     ));
-                    categoryData.put("products", productDtos);
+                    categoryData.put("products", productsByCategory.getOrDefault(category.getId(), List.of()));
                     
                     return categoryData;
                 })
@@ -184,129 +247,200 @@ public class ProductServiceImpl implements ProductService {
     }
     
     @Override
-    public List<ProductResponseDto> getProductsByComponentType(ComponentType componentType) {
-        List<Product> products = productRepository.findByComponentType(componentType);
-        return products.stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+    public List<ProductSnapshot> getProductsByComponentType(ComponentType componentType) {
+        return productCatalogCache.getList("component:" + componentType, 
+                () -> productRepository.findByComponentType(componentType).stream()
+                        .map(productSnapshotStore::snapshotOf)
+                        .collect(Collectors.toList()));
     }
     
     @Override
-    public List<ProductResponseDto> getProductsByCategory(UUID categoryId, String search, 
+    public Page<ProductSnapshot> getProductsByCategory(UUID categoryId, String search, 
                                                          BigDecimal minPrice, BigDecimal maxPrice, 
-                                                         String sort, List<UUID> productIds) {
-        
-        List<Product> products = productRepository.searchByCategoryWithFilters(
-                categoryId, null, search, minPrice, maxPrice, productIds);
+                                                         String sort, List<UUID> productIds,
+                                                         Pageable pageable) {
         
-        return applySortingAndConvert(products, sort);
+        return searchWithIndex(search, productIds, sort, pageable,
+                (keyword, ids, page) -> productRepository.searchByCategoryWithFilters(
+                        categoryId, null, keyword, minPrice, maxPrice, ids, page),
+                new ProductFacetIndex.Query(categoryId, null, null, minPrice, maxPrice, null, null,
+                        toFacetSort(sort, true)));
     }
     
     @Override
-    public List<ProductResponseDto> getHotSaleProducts() {
-        List<Product> products = productRepository.findHotSaleProductsByDiscount(20);
-        return products.stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+    public List<ProductSnapshot> getHotSaleProducts() {
+        return productCatalogCache.getList("hot-sale", () -> productRepository.findHotSaleProductsByDiscount(20).stream()
+                .map(productSnapshotStore::snapshotOf)
+                .collect(Collectors.toList()));
     }
     
     @Override
-    public List<ProductResponseDto> searchProducts(String search, BigDecimal minPrice, 
+    public Page<ProductSnapshot> searchProducts(String search, BigDecimal minPrice, 
                                                   BigDecimal maxPrice, String sort, 
-                                                  List<UUID> productIds) {
+                                                  List<UUID> productIds, Pageable pageable) {
         
-        List<Product> products = productRepository.searchWithFilters(search, minPrice, maxPrice, productIds);
-        return applySortingAndConvert(products, sort);
+        return searchWithIndex(search, productIds, sort, pageable,
+                (keyword, ids, page) -> productRepository.searchWithFilters(keyword, minPrice, maxPrice, ids, page),
+                new ProductFacetIndex.Query(null, null, null, minPrice, maxPrice, null, null,
+                        toFacetSort(sort, true)));
     }
     
     @Override
-    public List<ProductResponseDto> searchProductsByCategory(UUID categoryId, String search, 
+    public Page<ProductSnapshot> searchProductsByCategory(UUID categoryId, String search, 
                                                            BigDecimal minPrice, BigDecimal maxPrice, 
                                                            String sort, List<UUID> productIds, 
-                                                           ComponentType componentType) {
+                                                           ComponentType componentType, Pageable pageable) {
+        
+        return searchWithIndex(search, productIds, sort, pageable,
+                (keyword, ids, page) -> productRepository.searchByCategoryWithFilters(
+                        categoryId, componentType, keyword, minPrice, maxPrice, ids, page),
+                new ProductFacetIndex.Query(categoryId, null, componentType, minPrice, maxPrice, null, null,
+                        toFacetSort(sort, true)));
+    }
+    
+    @Override
+    public FacetedSearchResponseDto searchProductsWithFacets(UUID categoryId, String search,
+                                                             ComponentType componentType,
+                                                             BigDecimal minPrice, BigDecimal maxPrice,
+                                                             Boolean inStock, Integer discountTier,
+                                                             String sort, Pageable pageable) {
+        boolean hasKeyword = search != null && !search.trim().isEmpty();
+        List<UUID> keywordHits = hasKeyword ? productSearchIndex.search(search) : null;
         
-        List<Product> products = productRepository.searchByCategoryWithFilters(
-                categoryId, componentType, search, minPrice, maxPrice, productIds);
+        ProductFacetIndex.Result result = productFacetIndex.search(new ProductFacetIndex.Query(
+                categoryId, keywordHits, componentType, minPrice, maxPrice, inStock, discountTier,
+                toFacetSort(sort, hasKeyword)));
         
-        return applySortingAndConvert(products, sort);
+        return FacetedSearchResponseDto.builder()
+                .products(loadPage(result.matchedIds(), pageable))
+                .componentTypes(result.componentTypes())
+                .priceRanges(result.priceRanges())
+                .stock(result.stock())
+                .discountTiers(result.discountTiers())
+                .build();
+    }
+    
+    @Override
+    public List<SuggestionDto> suggestProducts(String query, int limit) {
+        return productSuggestIndex.suggest(query, Math.min(Math.max(limit, 1), ProductSuggestIndex.MAX_SUGGESTIONS));
     }
     
     /**
-     * Apply sorting and convert to DTOs
+     * Resolve keyword qua ProductSearchIndex thay vì LIKE '%kw%' trên DB.
+     * Các ID đã match được lọc (giá theo finalPrice, category, component type) và sắp xếp trên ProductFacetIndex,
+     * cắt trang trong Java rồi chỉ load entity của trang đó: DB không nhận danh sách ID dài theo số kết quả.
+     * Nếu index chưa sẵn sàng (app vừa khởi động) thì fallback về query LIKE trên search_key.
      */
-    private List<ProductResponseDto> applySortingAndConvert(List<Product> products, String sort) {
-        List<ProductResponseDto> productDtos = products.stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+    private Page<ProductSnapshot> searchWithIndex(String search, List<UUID> productIds, String sort,
+                                                     Pageable pageable, ProductPageQuery pageQuery,
+                                                     ProductFacetIndex.Query filters) {
+        Pageable sortedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), toSort(sort));
         
-        if (sort != null) {
-            switch (sort) {
-                case "price-asc":
-                    productDtos.sort(Comparator.comparing(ProductResponseDto::getFinalPrice));
-                    break;
-                case "price-desc":
-                    productDtos.sort(Comparator.comparing(ProductResponseDto::getFinalPrice).reversed());
-                    break;
-                case "name-asc":
-                    productDtos.sort(Comparator.comparing(ProductResponseDto::getName));
-                    break;
-                case "name-desc":
-                    productDtos.sort(Comparator.comparing(ProductResponseDto::getName).reversed());
-                    break;
-                case "newest":
-                    productDtos.sort(Comparator.comparing(ProductResponseDto::getCreatedAt).reversed());
-                    break;
-                default:
-                    // No sorting or unknown sort type
-                    break;
-            }
+        if (search == null || search.isBlank() || !productSearchIndex.isReady() || !productFacetIndex.isReady()) {
+            // Fallback: LIKE trên cột search_key (đã bỏ dấu), keyword cũng phải được bỏ dấu
+            String keyword = search != null ? TextNormalizer.fold(search) : null;
+            return pageQuery.find(keyword, productIds, sortedPageable).map(productSnapshotStore::snapshotOf);
         }
         
-        return productDtos;
+        List<UUID> rankedIds = productSearchIndex.search(search);
+        if (productIds != null) {
+            Set<UUID> allowedIds = new HashSet<>(productIds);
+            rankedIds = rankedIds.stream().filter(allowedIds::contains).toList();
+        }
+        if (rankedIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        
+        List<UUID> orderedIds = productFacetIndex.search(new ProductFacetIndex.Query(
+                filters.categoryId(), rankedIds, filters.componentType(), filters.minPrice(), filters.maxPrice(),
+                null, null, filters.sort())).matchedIds();
+        return loadPage(orderedIds, pageable);
+    }
+    
+    // Cắt trang trên danh sách ID đã sắp xếp, chỉ load từ DB các product của trang hiện tại
+    private Page<ProductSnapshot> loadPage(List<UUID> orderedIds, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), orderedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), orderedIds.size());
+        List<UUID> pageIds = orderedIds.subList(from, to);
+        
+        Map<UUID, Product> productsById = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<ProductSnapshot> content = pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(productSnapshotStore::snapshotOf)
+                .collect(Collectors.toList());
+        
+        return new PageImpl<>(content, pageable, orderedIds.size());
     }
     
     /**
-     * Convert Product entity to ProductResponseDto
+     * Map sort param của frontend sang ORDER BY, luôn kèm id để phân trang ổn định
      */
-    private ProductResponseDto convertToResponseDto(Product product) {
-        // Calculate final price after discount
-        BigDecimal finalPrice = product.getPrice();
-        if (product.getDiscount() != null && product.getDiscount().compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal discountAmount = product.getPrice()
-                    .multiply(product.getDiscount())
-                    .divide(BigDecimal.valueOf(100));
-            finalPrice = product.getPrice().subtract(discountAmount);
+    private Sort toSort(String sort) {
+        Sort tieBreaker = Sort.by(Sort.Direction.DESC, "id");
+        if (sort == null) {
+            return Sort.by(Sort.Direction.DESC, "createdAt").and(tieBreaker);
         }
-        
-        // Parse images from string to list
-        List<String> imagesList = product.getImages() != null ? 
-                Arrays.asList(product.getImages().split(",")) : new ArrayList<>();
-        
-        return ProductResponseDto.builder()
-                .id(product.getId())
-                .name(product.getName())
-                .price(product.getPrice())
-                .finalPrice(finalPrice)
-                .description(product.getDescription())
-                .images(imagesList)
-                .categoryId(product.getCategory().getId())
-                .categoryName(product.getCategory().getName())
-                .stock(product.getStock())
-                .componentType(product.getComponentType())
-                .discount(product.getDiscount() != null ? product.getDiscount().intValue() : 0)
-                .cpu(product.getCpu())
-                .main(product.getMain())
-                .ram(product.getRam())
-                .storage(product.getStorage())
-                .gpu(product.getGpu())
-                .power(product.getPower())
-                .caseComputer(product.getCaseComputer())
-                .coolers(product.getCoolers())
-                .createdAt(product.getCreatedAt())
-                .updatedAt(product.getUpdatedAt())
-                // TODO: Add review statistics calculation
-                .averageRating(0.0)
-                .totalReviews(0)
-                .build();
+        switch (sort) {
+            case "price-asc":
+                return Sort.by(Sort.Direction.ASC, "finalPrice").and(tieBreaker);
+            case "price-desc":
+                return Sort.by(Sort.Direction.DESC, "finalPrice").and(tieBreaker);
+            case "name-asc":
+                return Sort.by(Sort.Direction.ASC, "name").and(tieBreaker);
+            case "name-desc":
+                return Sort.by(Sort.Direction.DESC, "name").and(tieBreaker);
+            case "newest":
+            default:
+                return Sort.by(Sort.Direction.DESC, "createdAt").and(tieBreaker);
+        }
+    }
+    
+    private ProductFacetIndex.Sort toFacetSort(String sort, boolean hasKeyword) {
+        if (sort == null || sort.isBlank()) {
+            return hasKeyword ? ProductFacetIndex.Sort.RELEVANCE : ProductFacetIndex.Sort.NEWEST;
+        }
+        switch (sort) {
+            case "price-asc":
+                return ProductFacetIndex.Sort.PRICE_ASC;
+            case "price-desc":
+                return ProductFacetIndex.Sort.PRICE_DESC;
+            case "name-asc":
+                return ProductFacetIndex.Sort.NAME_ASC;
+            case "name-desc":
+                return ProductFacetIndex.Sort.NAME_DESC;
+            case "newest":
+            default:
+                return ProductFacetIndex.Sort.NEWEST;
+        }
+    }
+    
+    /**
+     * Cursor là base64url của "createdAt|id", client chỉ cần gửi lại nguyên giá trị
+     */
+    private String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private CatalogCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new CatalogCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    private record CatalogCursor(LocalDateTime createdAt, UUID id) {
+    }
+    
+    @FunctionalInterface
+    private interface ProductPageQuery {
+        Page<Product> find(String keyword, List<UUID> productIds, Pageable pageable);
     }
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.entity.StockReservation;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import com.example.ComputerStore.event.ProductChangedEvent;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.StockReservationRepository;
+import com.example.ComputerStore.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Giữ hàng bằng UPDATE có điều kiện (stock >= quantity) trên chính dòng product:
+ * DB đảm bảo không oversell mà không cần lock toàn cục, các request chỉ tranh chấp trên dòng của SKU đó
+ * trong thời gian một câu UPDATE. Dòng giữ hàng của cùng một dòng giỏ được khóa bằng SELECT ... FOR UPDATE
+ * để các thay đổi số lượng đồng thời của cùng user không tính lệch phần chênh lệch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.stock.hold-ttl-ms:900000}")
+    private long holdTtlMs;
+
+    @Override
+    public StockReservation hold(UUID userId, UUID productId, ReservationSource source, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Số lượng giữ hàng phải lớn hơn 0");
+        }
+
+        StockReservation reservation = stockReservationRepository.findLineForUpdate(userId, productId, source)
+                .orElse(null);
+        int held = reservation == null ? 0 : reservation.getQuantity();
+        adjustStock(productId, held, quantity);
+
+        StockReservation saved = stockReservationRepository.save(
+                extend(reservation, userId, productId, source, quantity, LocalDateTime.now()));
+        if (quantity != held) {
+            publishStockChanged(productId);
+        }
+        return saved;
+    }
+
+    @Override
+    public void holdAll(UUID userId, ReservationSource source, Map<UUID, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<UUID, StockReservation> existing = new HashMap<>();
+        stockReservationRepository.findLinesForUpdate(userId, source, quantities.keySet())
+                .forEach(reservation -> existing.put(reservation.getProductId(), reservation));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> toSave = new ArrayList<>();
+        List<StockReservation> toDelete = new ArrayList<>();
+        List<UUID> changedProducts = new ArrayList<>();
+        // Trừ kho theo thứ tự productId cố định để hai batch đồng thời không khóa dòng product chéo nhau (deadlock)
+        for (Map.Entry<UUID, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            UUID productId = entry.getKey();
+            int quantity = entry.getValue();
+            StockReservation reservation = existing.get(productId);
+            int held = reservation == null ? 0 : reservation.getQuantity();
+
+            adjustStock(productId, held, quantity);
+            if (quantity == 0) {
+                if (reservation != null) {
+                    toDelete.add(reservation);
+                }
+            } else {
+                toSave.add(extend(reservation, userId, productId, source, quantity, now));
+            }
+            if (quantity != held) {
+                changedProducts.add(productId);
+            }
+        }
+
+        stockReservationRepository.saveAll(toSave);
+        if (!toDelete.isEmpty()) {
+            stockReservationRepository.deleteAllInBatch(toDelete);
+        }
+        changedProducts.forEach(this::publishStockChanged);
+    }
+
+    @Override
+    public void release(UUID userId, UUID productId, ReservationSource source) {
+        stockReservationRepository.findLineForUpdate(userId, productId, source)
+                .ifPresent(this::returnToStock);
+    }
+
+    @Override
+    public void releaseAll(UUID userId, ReservationSource source) {
+        for (StockReservation reservation : stockReservationRepository.findByUserIdAndSource(userId, source)) {
+            release(userId, reservation.getProductId(), source);
+        }
+    }
+
+    @Override
+    public int commit(UUID userId, UUID productId, ReservationSource source) {
+        return stockReservationRepository.findLineForUpdate(userId, productId, source)
+                .map(reservation -> {
+                    stockReservationRepository.delete(reservation);
+                    return reservation.getQuantity();
+                })
+                .orElse(0);
+    }
+
+    @Override
+    public void commitAll(UUID userId, ReservationSource source, Map<UUID, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<UUID, StockReservation> existing = new HashMap<>();
+        stockReservationRepository.findLinesForUpdate(userId, source, quantities.keySet())
+                .forEach(reservation -> existing.put(reservation.getProductId(), reservation));
+
+        List<UUID> changedProducts = new ArrayList<>();
+        // Cùng thứ tự productId với holdAll để checkout và batch đồng thời không deadlock trên dòng product
+        for (Map.Entry<UUID, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            UUID productId = entry.getKey();
+            int quantity = entry.getValue();
+            StockReservation reservation = existing.get(productId);
+            int held = reservation == null ? 0 : reservation.getQuantity();
+
+            adjustStock(productId, held, quantity);
+            if (quantity != held) {
+                changedProducts.add(productId);
+            }
+        }
+
+        if (!existing.isEmpty()) {
+            stockReservationRepository.deleteAllInBatch(existing.values());
+        }
+        changedProducts.forEach(this::publishStockChanged);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int heldQuantity(UUID userId, UUID productId, ReservationSource source) {
+        return stockReservationRepository.findByUserIdAndProductIdAndSource(userId, productId, source)
+                .map(StockReservation::getQuantity)
+                .orElse(0);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${app.stock.expiry-sweep-ms:30000}",
+            fixedDelayString = "${app.stock.expiry-sweep-ms:30000}")
+    public int expireDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> expired = stockReservationRepository.findExpired(now, PageRequest.of(0, EXPIRY_BATCH_SIZE));
+        Set<UUID> changedProducts = new HashSet<>();
+        int count = 0;
+        for (StockReservation reservation : expired) {
+            // Xóa có điều kiện: dòng vừa được gia hạn / hủy / checkout thì bỏ qua, tránh trả kho hai lần
+            if (stockReservationRepository.deleteIfExpired(reservation.getId(), now) == 1) {
+                productRepository.incrementStock(reservation.getProductId(), reservation.getQuantity());
+                changedProducts.add(reservation.getProductId());
+                count++;
+            }
+        }
+        changedProducts.forEach(this::publishStockChanged);
+        if (count > 0) {
+            log.info("Released {} expired stock reservations", count);
+        }
+        return count;
+    }
+
+    // Helper methods
+    // Trừ / trả kho phần chênh lệch giữa số lượng đang giữ và số lượng mới
+    private void adjustStock(UUID productId, int held, int quantity) {
+        int delta = quantity - held;
+        if (delta > 0 && productRepository.decrementStock(productId, delta) == 0) {
+            int available = productRepository.findStockById(productId)
+                    .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại với ID: " + productId));
+            throw new RuntimeException("Số lượng trong kho không đủ. Còn lại: " + (available + held));
+        }
+        if (delta < 0) {
+            productRepository.incrementStock(productId, -delta);
+        }
+    }
+
+    private StockReservation extend(StockReservation reservation, UUID userId, UUID productId,
+                                    ReservationSource source, int quantity, LocalDateTime now) {
+        if (reservation == null) {
+            reservation = StockReservation.builder()
+                    .userId(userId)
+                    .productId(productId)
+                    .source(source)
+                    .build();
+        }
+        reservation.setQuantity(quantity);
+        reservation.setExpiresAt(now.plusNanos(holdTtlMs * 1_000_000));
+        return reservation;
+    }
+
+    private void returnToStock(StockReservation reservation) {
+        stockReservationRepository.delete(reservation);
+        productRepository.incrementStock(reservation.getProductId(), reservation.getQuantity());
+        publishStockChanged(reservation.getProductId());
+    }
+
+    // Đọc lại tồn kho trong chính transaction (dòng product đang bị khóa bởi UPDATE vừa chạy)
+    // để listener sau commit không phải load lại entity
+    private void publishStockChanged(UUID productId) {
+        productRepository.findStockById(productId)
+                .ifPresent(stock -> eventPublisher.publishEvent(ProductChangedEvent.stockChanged(productId, stock)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.ComputerStore.service.impl;
 
 import com.example.ComputerStore.dto.request.AddToWatchlistDto;
+import com.example.ComputerStore.dto.response.ProductResponseDto;
 import com.example.ComputerStore.dto.response.WatchlistResponseDto;
 import com.example.ComputerStore.dto.response.WatchlistStatsDto;
 import com.example.ComputerStore.entity.Product;
@@ -10,6 +11,7 @@ import com.example.ComputerStore.enumeric.ComponentType;
 import com.example.ComputerStore.repository.ProductRepository;
 import com.example.ComputerStore.repository.UserRepository;
 import com.example.ComputerStore.repository.UserWatchProductRepository;
+import com.example.ComputerStore.service.ProductSnapshotStore;
 import com.example.ComputerStore.service.UserWatchProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +36,7 @@ public class UserWatchProductServiceImpl implements UserWatchProductService {
     private final UserWatchProductRepository userWatchProductRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ProductSnapshotStore productSnapshotStore;
 
     @Override
     public WatchlistResponseDto addToWatchlist(UUID userId, AddToWatchlistDto addToWatchlistDto) {
@@ -200,19 +203,11 @@ public class UserWatchProductServiceImpl implements UserWatchProductService {
     // Helper method to convert entity to DTO
     private WatchlistResponseDto convertToWatchlistResponse(UserWatchProduct watchlistItem) {
         Product product = watchlistItem.getProduct();
+        // Images và giá sau giảm lấy từ snapshot đã tính sẵn của product
+        ProductResponseDto snapshot = productSnapshotStore.snapshotOf(product).getDto();
         
-        // Parse images - handle null or empty images
-        List<String> images = (product.getImages() != null && !product.getImages().trim().isEmpty()) 
-            ? Arrays.asList(product.getImages().split(","))
-            : List.of();
-        
-        // Calculate final price after discount
-        BigDecimal finalPrice = product.getPrice();
-        if (product.getDiscount() != null && product.getDiscount().compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal discountAmount = finalPrice.multiply(product.getDiscount())
-                .divide(BigDecimal.valueOf(100));
-            finalPrice = finalPrice.subtract(discountAmount);
-        }
+        List<String> images = snapshot.getImages();
+        BigDecimal finalPrice = snapshot.getFinalPrice();
         
         // Determine stock status
         boolean inStock = product.getStock() > 0;
@@ -0,0 +1,143 @@
+package com.example.ComputerStore.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Journal dạng file chỉ ghi nối (mỗi bản ghi một dòng text), chia thành các segment đánh số tăng dần.
+ * Segment đang ghi được "niêm phong" khi rotate; segment đã niêm phong bị xóa khi dữ liệu của nó
+ * đã được ghi bền vững ở nơi khác. Dòng cuối có thể bị cắt dở nếu process chết giữa chừng, bên đọc phải bỏ qua.
+ * Các thao tác được đồng bộ bằng monitor của journal.
+ */
+public class AppendOnlyJournal implements AutoCloseable {
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final String prefix;
+    private final boolean fsync;
+
+    private FileChannel channel;
+    private long sequence;
+
+    /**
+     * @param fsync true: force xuống đĩa sau mỗi bản ghi (chịu được mất điện); false: chỉ ghi vào page cache
+     *              của OS (chịu được process crash), force khi rotate
+     */
+    public AppendOnlyJournal(Path directory, String prefix, boolean fsync) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.sequence = segments().stream().mapToLong(this::sequenceOf).max().orElse(0);
+            open(sequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không mở được journal tại " + directory, e);
+        }
+    }
+
+    public synchronized void append(String record) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không ghi được journal", e);
+        }
+    }
+
+    /**
+     * Niêm phong segment hiện tại và mở segment mới; trả về sequence của segment vừa niêm phong
+     */
+    public synchronized long rotate() {
+        try {
+            channel.force(false);
+            channel.close();
+            long sealed = sequence;
+            open(sequence + 1);
+            return sealed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không rotate được journal", e);
+        }
+    }
+
+    /**
+     * Xóa các segment đã niêm phong có sequence <= upTo
+     */
+    public synchronized void deleteUpTo(long upTo) {
+        try {
+            for (Path segment : segments()) {
+                if (sequenceOf(segment) <= upTo) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không xóa được segment journal", e);
+        }
+    }
+
+    /**
+     * Đọc toàn bộ bản ghi của các segment đã niêm phong có sequence <= upTo, theo thứ tự ghi
+     */
+    public synchronized List<String> readUpTo(long upTo) {
+        List<String> records = new ArrayList<>();
+        try {
+            for (Path segment : segments()) {
+                if (sequenceOf(segment) <= upTo) {
+                    records.addAll(Files.readAllLines(segment, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đọc được journal", e);
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đóng được journal", e);
+        }
+    }
+
+    // Helper methods
+    private void open(long nextSequence) throws IOException {
+        sequence = nextSequence;
+        channel = FileChannel.open(directory.resolve(String.format("%s-%019d%s", prefix, sequence, SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Các segment của journal, sắp theo sequence tăng dần (tên file được pad số 0 nên sắp theo tên là đủ)
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix + "-") && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length() + 1, name.length() - SUFFIX.length()));
+    }
+}
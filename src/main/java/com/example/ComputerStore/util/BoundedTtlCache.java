@@ -0,0 +1,158 @@
+package com.example.ComputerStore.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache trong bộ nhớ có giới hạn theo tổng trọng số (ước lượng bytes) và TTL cho từng entry.
+ * Khi vượt giới hạn sẽ loại entry ít được dùng gần đây nhất (LRU).
+ * Các thao tác được đồng bộ bằng monitor của cache; loader chạy ngoài lock.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+
+    // accessOrder = true: entry ít dùng nhất luôn ở đầu
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalWeight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    // Tăng mỗi lần invalidate, để không ghi kết quả load cũ đè lên dữ liệu vừa bị invalidate
+    private long generation = 0;
+
+    public BoundedTtlCache(String name, long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            removeEntry(key, entry);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Lấy từ cache, nếu không có thì gọi loader và lưu kết quả (không lưu null)
+     */
+    public V getOrLoad(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long weight = Math.max(1, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            return;
+        }
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        entries.put(key, new Entry<>(value, weight, System.currentTimeMillis() + ttlMillis));
+        totalWeight += weight;
+        evictIfNeeded();
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+        }
+    }
+
+    /**
+     * Xóa các entry có value thỏa điều kiện, các entry khác giữ nguyên
+     */
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        generation++;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next();
+            if (predicate.test(entry.value)) {
+                iterator.remove();
+                totalWeight -= entry.weight;
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requests = hits + misses;
+        stats.put("name", name);
+        stats.put("entries", entries.size());
+        stats.put("weight", totalWeight);
+        stats.put("maxWeight", maxWeight);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        return stats;
+    }
+
+    // Helper methods
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next().getValue();
+            iterator.remove();
+            totalWeight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    private void removeEntry(K key, Entry<V> entry) {
+        entries.remove(key);
+        totalWeight -= entry.weight;
+    }
+
+    private record Entry<V>(V value, long weight, long expiresAt) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.ComputerStore.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * HyperLogLog: ước lượng số phần tử phân biệt với bộ nhớ cố định (2^precision byte).
+ * Precision 12 (4 KB) cho sai số chuẩn ~1.6%. Hai sketch cùng precision gộp được bằng max từng register,
+ * nên sketch theo ngày có thể gộp thành sketch cho tuần / tháng / năm.
+ * Không thread-safe.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.precision = Integer.numberOfTrailingZeros(registers.length);
+        this.registers = registers;
+    }
+
+    public void add(UUID value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Bit canh gác để rank không vượt quá 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches with different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Hiệu chỉnh cho số phần tử nhỏ (linear counting)
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public byte[] toBytes() {
+        return registers.clone();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new HyperLogLog();
+        }
+        if (Integer.bitCount(bytes.length) != 1) {
+            throw new IllegalArgumentException("Invalid HyperLogLog registers length: " + bytes.length);
+        }
+        return new HyperLogLog(Arrays.copyOf(bytes, bytes.length));
+    }
+
+    // Helper methods
+    private static long hash(UUID value) {
+        long h = fmix64(value.getMostSignificantBits())
+                ^ Long.rotateLeft(fmix64(value.getLeastSignificantBits()), 31);
+        return fmix64(h);
+    }
+
+    // Bước trộn cuối của MurmurHash3, phân tán đều các bit
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
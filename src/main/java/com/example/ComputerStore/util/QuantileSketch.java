@@ -0,0 +1,135 @@
+package com.example.ComputerStore.util;
+
+import java.io.*;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sketch ước lượng phân vị (p50 / p90 / p99) cho giá trị dương theo kiểu DDSketch:
+ * giá trị được đếm vào bucket logarit, phân vị trả về sai lệch tương đối tối đa relativeAccuracy (1%).
+ * Bộ đếm có thể trừ (khi payment bị hủy) và hai sketch gộp được bằng cộng số đếm theo bucket.
+ * Không thread-safe.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    // bucket index -> số giá trị; giá trị <= 0 đếm riêng
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long zeroCount = 0;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    // delta âm để gỡ giá trị đã thêm trước đó
+    public void add(double value, long delta) {
+        if (value <= 0) {
+            zeroCount += delta;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        counts.merge(index, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge quantile sketches with different accuracy");
+        }
+        zeroCount += other.zeroCount;
+        other.counts.forEach((index, count) -> counts.merge(index, count, (a, b) -> a + b == 0 ? null : a + b));
+    }
+
+    public long count() {
+        long total = zeroCount;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Giá trị tại phân vị q (0..1), 0 nếu sketch rỗng
+     */
+    public double quantile(double q) {
+        long total = count();
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(q * (total - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        double value = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            value = 2 * Math.pow(gamma, entry.getKey()) / (gamma + 1);
+            if (seen > rank) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + counts.size() * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeDouble(relativeAccuracy);
+            out.writeLong(zeroCount);
+            out.writeInt(counts.size());
+            for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new QuantileSketch();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported quantile sketch format: " + version);
+            }
+            QuantileSketch sketch = new QuantileSketch(in.readDouble());
+            sketch.zeroCount = in.readLong();
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                sketch.counts.put(in.readInt(), in.readLong());
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.ComputerStore.service;
+
+import com.example.ComputerStore.dto.response.CartResponseDto;
+import com.example.ComputerStore.entity.Cart;
+import com.example.ComputerStore.entity.Category;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.entity.User;
+import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.enumeric.TypeLogin;
+import com.example.ComputerStore.repository.CartRepository;
+import com.example.ComputerStore.repository.CategoryRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.StockReservationRepository;
+import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.impl.StockReservationServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Giỏ hàng write-behind: journal chưa flush được ghi lại sau khi khởi động lại, bản ghi cũ không đè
+ * thay đổi mới hơn đi qua đường đồng bộ, flush lỗi giữ lại dữ liệu cho lần flush sau
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-behind;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.stock.hold-ttl-ms=900000"
+})
+@Import(StockReservationServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartWriteBehindStoreTest {
+
+    private static final long IDLE_MS = 600_000;
+
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ProductSnapshotStore productSnapshotStore;
+
+    @TempDir
+    Path journalDir;
+
+    private User user;
+    private Product product;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setName("Write-behind");
+        category = categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("SSD 1TB");
+        product.setPrice(BigDecimal.valueOf(2_000_000));
+        product.setDiscount(BigDecimal.ZERO);
+        product.setDescription("SSD 1TB");
+        product.setImages("[]");
+        product.setStock(100);
+        product.setComponentType(ComponentType.SSD);
+        product.setCategory(category);
+        product = productRepository.save(product);
+
+        user = new User();
+        user.setFullName("buyer");
+        user.setEmail("buyer@example.com");
+        user.setPassword("secret");
+        user.setTypeLogin(TypeLogin.EMAIL);
+        user = userRepository.save(user);
+
+        cart = cartRepository.save(Cart.builder()
+                .user(user)
+                .product(product)
+                .quantity(1)
+                .totalPrice(product.getFinalPrice())
+                .fullName(user.getFullName())
+                .phone("0901234567")
+                .address("1 Nguyen Trai, Quan 1, TP HCM")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.deleteAll();
+        stockReservationRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void unflushedJournalIsReplayedAfterRestart() {
+        CartWriteBehindStore store = newStore(cartRepository);
+        store.updateQuantity(user.getId(), product.getId(), 4, this::loadCart);
+        assertEquals(1, quantityInDb());
+
+        // Process chết trước khi flush: instance mới đọc lại segment còn trên đĩa
+        CartWriteBehindStore restarted = newStore(cartRepository);
+        restarted.onApplicationReady();
+
+        Cart replayed = cartRepository.findById(cart.getId()).orElseThrow();
+        assertEquals(4, replayed.getQuantity());
+        assertEquals(0, product.getFinalPrice().multiply(BigDecimal.valueOf(4)).compareTo(replayed.getTotalPrice()));
+        assertTrue(journalRecords().isEmpty());
+    }
+
+    @Test
+    void staleJournalRecordDoesNotOverwriteNewerSynchronousWrite() {
+        CartWriteBehindStore store = newStore(cartRepository);
+        store.updateQuantity(user.getId(), product.getId(), 9, this::loadCart);
+
+        // Thay đổi đi qua đường đồng bộ sau thời điểm của bản ghi journal
+        Cart synced = cartRepository.findById(cart.getId()).orElseThrow();
+        synced.setQuantity(2);
+        synced.setTotalPrice(product.getFinalPrice().multiply(BigDecimal.valueOf(2)));
+        cartRepository.save(synced);
+
+        CartWriteBehindStore restarted = newStore(cartRepository);
+        restarted.onApplicationReady();
+        assertEquals(2, quantityInDb());
+
+        // Flush trễ của instance cũ cũng không ghi đè
+        store.flush();
+        Cart current = cartRepository.findById(cart.getId()).orElseThrow();
+        assertEquals(2, current.getQuantity());
+        assertEquals(0, product.getFinalPrice().multiply(BigDecimal.valueOf(2)).compareTo(current.getTotalPrice()));
+    }
+
+    @Test
+    void failedFlushKeepsLinesForNextFlush() {
+        CartRepository failingOnce = mock(CartRepository.class);
+        when(failingOnce.applyDeferredQuantity(any(), anyInt(), any()))
+                .thenThrow(new RuntimeException("Mất kết nối DB"))
+                .thenAnswer(invocation -> cartRepository.applyDeferredQuantity(
+                        invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+
+        CartWriteBehindStore store = newStore(failingOnce);
+        store.updateQuantity(user.getId(), product.getId(), 3, this::loadCart);
+
+        store.flush();
+        assertEquals(1, quantityInDb());
+        assertEquals(1L, store.stats().get("dirtyLines"));
+        // Bản ghi được ghi lại vào segment hiện tại, vẫn replay được nếu process chết lúc này
+        assertTrue(journalRecords().stream().anyMatch(record -> record.startsWith(cart.getId() + ",3,")));
+
+        store.flush();
+        assertEquals(3, quantityInDb());
+        assertEquals(0L, store.stats().get("dirtyLines"));
+
+        // Segment đã niêm phong chỉ bị xóa ở lần flush thành công sau đó
+        store.flush();
+        assertTrue(journalRecords().isEmpty());
+    }
+
+    @Test
+    void flushUserWritesPendingChangesImmediately() {
+        CartWriteBehindStore store = newStore(cartRepository);
+        store.updateQuantity(user.getId(), product.getId(), 5, this::loadCart);
+        assertEquals(1, quantityInDb());
+
+        store.flushUser(user.getId());
+        assertEquals(5, quantityInDb());
+        assertEquals(0L, store.stats().get("dirtyLines"));
+    }
+
+    private CartWriteBehindStore newStore(CartRepository carts) {
+        return new CartWriteBehindStore(carts, productRepository, productSnapshotStore, stockReservationRepository,
+                stockReservationService, transactionManager, true, journalDir.toString(), false, IDLE_MS);
+    }
+
+    private List<CartResponseDto> loadCart(UUID userId) {
+        Cart current = cartRepository.findById(cart.getId()).orElseThrow();
+        return List.of(CartResponseDto.builder()
+                .cartId(current.getId())
+                .quantity(current.getQuantity())
+                .totalPrice(current.getTotalPrice())
+                .fullName(current.getFullName())
+                .phone(current.getPhone())
+                .address(current.getAddress())
+                .product(CartResponseDto.ProductInCartDto.builder()
+                        .productId(product.getId())
+                        .name(product.getName())
+                        .originalPrice(product.getPrice())
+                        .finalPrice(product.getFinalPrice())
+                        .discount(product.getDiscount())
+                        .build())
+                .build());
+    }
+
+    private int quantityInDb() {
+        return cartRepository.findById(cart.getId()).orElseThrow().getQuantity();
+    }
+
+    private List<String> journalRecords() {
+        try (Stream<Path> segments = Files.list(journalDir)) {
+            return segments.sorted()
+                    .flatMap(segment -> {
+                        try {
+                            return Files.readAllLines(segment).stream();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.dto.request.CheckoutDto;
+import com.example.ComputerStore.dto.response.CheckoutResponseDto;
+import com.example.ComputerStore.entity.Cart;
+import com.example.ComputerStore.entity.Category;
+import com.example.ComputerStore.entity.Payment;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.entity.User;
+import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.enumeric.PaymentType;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import com.example.ComputerStore.enumeric.TypeLogin;
+import com.example.ComputerStore.repository.CartRepository;
+import com.example.ComputerStore.repository.CategoryRepository;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.StockReservationRepository;
+import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.CartWriteBehindStore;
+import com.example.ComputerStore.service.CheckoutService;
+import com.example.ComputerStore.service.OrderTaskQueue;
+import com.example.ComputerStore.service.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test đặt hàng: nhiều user checkout đồng thời trên cùng vài SKU, đo throughput và kiểm tra
+ * tồn kho / payments / giỏ hàng nhất quán sau khi chạy
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.stock.hold-ttl-ms=900000"
+})
+@Import({CheckoutServiceImpl.class, StockReservationServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Slf4j
+class CheckoutServiceImplTest {
+
+    private static final int PRODUCTS = 5;
+    private static final int INITIAL_STOCK = 1_000;
+    private static final int USERS = 200;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private CartWriteBehindStore cartWriteBehindStore;
+    @MockBean
+    private OrderTaskQueue orderTaskQueue;
+
+    private Category category;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("Checkout");
+        category = categoryRepository.save(category);
+
+        products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(createProduct("SKU " + i, INITIAL_STOCK));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAll();
+        cartRepository.deleteAll();
+        stockReservationRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsKeepStockPaymentsAndCartsConsistent() throws Exception {
+        Random random = new Random(42);
+        Map<UUID, Integer> expectedSold = new HashMap<>();
+        List<UUID> userIds = new ArrayList<>();
+        int expectedLines = 0;
+        for (int i = 0; i < USERS; i++) {
+            User user = createUser("buyer" + i);
+            userIds.add(user.getId());
+            for (int p = 0; p < PRODUCTS; p++) {
+                if (random.nextInt(2) == 0) {
+                    continue;
+                }
+                Product product = products.get(p);
+                int quantity = 1 + random.nextInt(3);
+                addToCart(user, product, quantity);
+                // Một nửa số dòng đã giữ hàng từ lúc thêm vào giỏ, nửa còn lại như giữ hàng đã hết hạn
+                if (random.nextBoolean()) {
+                    stockReservationService.hold(user.getId(), product.getId(), ReservationSource.CART, quantity);
+                }
+                expectedSold.merge(product.getId(), quantity, Integer::sum);
+                expectedLines++;
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    checkoutService.checkout(userId, checkoutDto());
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Giỏ trống (user không có dòng nào) bị từ chối
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        executor.shutdown();
+        log.info("{} checkouts ({} lines) from {} threads in {} ms: {} checkouts/s",
+                succeeded.get(), expectedLines, THREADS, elapsedMillis, succeeded.get() * 1000L / elapsedMillis);
+
+        List<Payment> payments = paymentRepository.findAll();
+        assertEquals(expectedLines, payments.size());
+        assertEquals(succeeded.get(), payments.stream().map(Payment::getIdPayment).distinct().count());
+        assertEquals(0, cartRepository.count());
+        assertEquals(0, stockReservationRepository.count());
+        for (Product product : products) {
+            int sold = expectedSold.getOrDefault(product.getId(), 0);
+            assertEquals(INITIAL_STOCK - sold, productRepository.findStockById(product.getId()).orElseThrow());
+        }
+    }
+
+    @Test
+    void concurrentCheckoutsOnScarceSkuNeverOversell() throws Exception {
+        Product scarce = createProduct("Scarce SKU", 10);
+        List<UUID> userIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            User user = createUser("scarce" + i);
+            addToCart(user, scarce, 1);
+            userIds.add(user.getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    checkoutService.checkout(userId, checkoutDto());
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Hết hàng: đơn bị rollback, giỏ giữ nguyên
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(10, succeeded.get());
+        assertEquals(0, productRepository.findStockById(scarce.getId()).orElseThrow());
+        assertEquals(10, paymentRepository.count());
+        assertEquals(20, cartRepository.count());
+    }
+
+    @Test
+    void concurrentCheckoutsOfSameUserPlaceOneOrder() throws Exception {
+        User user = createUser("double");
+        addToCart(user, products.get(0), 2);
+        addToCart(user, products.get(1), 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    checkoutService.checkout(user.getId(), checkoutDto());
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Lần sau thấy giỏ đã trống
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, succeeded.get());
+        assertEquals(2, paymentRepository.count());
+        assertEquals(INITIAL_STOCK - 2, productRepository.findStockById(products.get(0).getId()).orElseThrow());
+        assertEquals(INITIAL_STOCK - 1, productRepository.findStockById(products.get(1).getId()).orElseThrow());
+    }
+
+    @Test
+    void checkoutRollsBackWhenAnyLineIsOutOfStock() {
+        Product scarce = createProduct("Scarce SKU", 1);
+        User user = createUser("rollback");
+        Product plenty = products.get(0);
+        addToCart(user, plenty, 3);
+        stockReservationService.hold(user.getId(), plenty.getId(), ReservationSource.CART, 3);
+        addToCart(user, scarce, 2);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> checkoutService.checkout(user.getId(), checkoutDto()));
+        assertTrue(error.getMessage().contains("1"));
+
+        assertEquals(0, paymentRepository.count());
+        assertEquals(2, cartRepository.findByUserId(user.getId()).size());
+        assertEquals(3, stockReservationService.heldQuantity(user.getId(), plenty.getId(), ReservationSource.CART));
+        assertEquals(INITIAL_STOCK - 3, productRepository.findStockById(plenty.getId()).orElseThrow());
+        assertEquals(1, productRepository.findStockById(scarce.getId()).orElseThrow());
+    }
+
+    @Test
+    void checkoutChargesCurrentPriceUnderSharedIdPayment() {
+        User user = createUser("price");
+        Product product = products.get(0);
+        addToCart(user, product, 2);
+        addToCart(user, products.get(1), 1);
+
+        Product repriced = productRepository.findById(product.getId()).orElseThrow();
+        repriced.setDiscount(BigDecimal.valueOf(10));
+        productRepository.save(repriced);
+
+        CheckoutResponseDto response = checkoutService.checkout(user.getId(), checkoutDto());
+
+        assertEquals(2, response.getTotalItems());
+        assertEquals(3, response.getTotalQuantity());
+        assertEquals(0, new BigDecimal("2800000").compareTo(response.getTotalPrice()));
+        Set<String> idPayments = paymentRepository.findByUserId(user.getId()).stream()
+                .map(Payment::getIdPayment)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(response.getIdPayment()), idPayments);
+    }
+
+    private Product createProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.valueOf(1_000_000));
+        product.setDiscount(BigDecimal.ZERO);
+        product.setDescription(name);
+        product.setImages("[]");
+        product.setStock(stock);
+        product.setComponentType(ComponentType.CPU);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+
+    private User createUser(String name) {
+        User user = new User();
+        user.setFullName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("secret");
+        user.setTypeLogin(TypeLogin.EMAIL);
+        return userRepository.save(user);
+    }
+
+    private void addToCart(User user, Product product, int quantity) {
+        cartRepository.save(Cart.builder()
+                .user(user)
+                .product(product)
+                .quantity(quantity)
+                .totalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .fullName(user.getFullName())
+                .phone("0901234567")
+                .address("1 Nguyen Trai, Quan 1, TP HCM")
+                .build());
+    }
+
+    private CheckoutDto checkoutDto() {
+        return CheckoutDto.builder().typePayment(PaymentType.COD).build();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.dto.response.ApiResponse;
+import com.example.ComputerStore.enumeric.PaymentStatus;
+import com.example.ComputerStore.enumeric.RollupGranularity;
+import com.example.ComputerStore.repository.BlogRepository;
+import com.example.ComputerStore.repository.CategoryRepository;
+import com.example.ComputerStore.repository.PaymentRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.UserRepository;
+import com.example.ComputerStore.service.DashboardQueryRunner;
+import com.example.ComputerStore.service.DashboardSnapshotCache;
+import com.example.ComputerStore.service.PaymentRollupService;
+import com.example.ComputerStore.service.PaymentSketchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dashboard phải tính thống kê bằng query tổng hợp trong DB,
+ * không được load toàn bộ bảng lên bộ nhớ bằng findAll()
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceImplTest {
+
+    private static final long QUERY_TIMEOUT_MS = 500;
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private BlogRepository blogRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PaymentRollupService paymentRollupService;
+    @Mock
+    private PaymentSketchService paymentSketchService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DashboardQueryRunner dashboardQueryRunner;
+    private DashboardSnapshotCache dashboardSnapshotCache;
+    private DashboardServiceImpl dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        dashboardQueryRunner = new DashboardQueryRunner(8, 64, QUERY_TIMEOUT_MS, transactionManager);
+        // Freshness window = 0: mỗi lần gọi đều tính lại, trừ test cache bên dưới
+        dashboardSnapshotCache = new DashboardSnapshotCache(0, 0, 1);
+        dashboardService = newService(dashboardSnapshotCache);
+    }
+
+    @AfterEach
+    void noFullTableScans() {
+        dashboardQueryRunner.shutdown();
+        dashboardSnapshotCache.shutdown();
+        verifyNoFindAll(userRepository);
+        verifyNoFindAll(productRepository);
+        verifyNoFindAll(categoryRepository);
+        verifyNoFindAll(blogRepository);
+        verifyNoFindAll(paymentRepository);
+    }
+
+    @Test
+    void getDashboardStats_usesAggregates() {
+        when(paymentRepository.getTotalRevenue()).thenReturn(new BigDecimal("1500000"));
+        when(paymentRepository.getOrderStatusStats())
+                .thenReturn(List.<Object[]>of(new Object[]{PaymentStatus.COMPLETED, 3L}));
+        when(userRepository.countByIsAdmin("1")).thenReturn(2L);
+        when(userRepository.countByIsAdmin("0")).thenReturn(40L);
+
+        ApiResponse<Map<String, Object>> response = dashboardService.getDashboardStats();
+
+        assertTrue(response.isSuccess());
+        Map<String, Object> data = response.getData();
+        assertEquals(new BigDecimal("1500000"), data.get("totalRevenue"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> statusStats = (Map<String, Long>) data.get("paymentStatusStats");
+        assertEquals(3L, statusStats.get(PaymentStatus.COMPLETED.name()));
+        // Trạng thái không có payment nào vẫn phải có mặt với giá trị 0
+        assertEquals(0L, statusStats.get(PaymentStatus.PENDING.name()));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> roleStats = (Map<String, Long>) data.get("userRoleStats");
+        assertEquals(2L, roleStats.get("ADMIN"));
+        assertEquals(40L, roleStats.get("USER"));
+    }
+
+    @Test
+    void getDashboardStats_runsQueriesConcurrently() {
+        when(userRepository.count()).thenAnswer(invocation -> sleepAndReturn(200, 1L));
+        when(productRepository.count()).thenAnswer(invocation -> sleepAndReturn(200, 2L));
+        when(categoryRepository.count()).thenAnswer(invocation -> sleepAndReturn(200, 3L));
+        when(blogRepository.count()).thenAnswer(invocation -> sleepAndReturn(200, 4L));
+        when(paymentRepository.count()).thenAnswer(invocation -> sleepAndReturn(200, 5L));
+
+        long start = System.nanoTime();
+        ApiResponse<Map<String, Object>> response = dashboardService.getDashboardStats();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(response.isSuccess());
+        assertEquals(false, response.getData().get("partial"));
+        assertEquals(5L, response.getData().get("totalPayments"));
+        // Tuần tự sẽ mất >= 1000 ms; song song xấp xỉ query chậm nhất
+        assertTrue(elapsedMs < 800, "took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void getDashboardStats_returnsPartialResultWhenQueryTimesOut() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(blogRepository.count()).thenAnswer(invocation -> {
+            try {
+                return sleepAndReturn(QUERY_TIMEOUT_MS * 10, 4L);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+        when(categoryRepository.count()).thenThrow(new RuntimeException("boom"));
+        when(userRepository.count()).thenReturn(10L);
+
+        ApiResponse<Map<String, Object>> response = dashboardService.getDashboardStats();
+
+        assertTrue(response.isSuccess());
+        Map<String, Object> data = response.getData();
+        assertEquals(true, data.get("partial"));
+        assertEquals(List.of("totalCategories", "totalBlogs"), data.get("failedQueries"));
+        assertFalse(data.containsKey("totalBlogs"));
+        assertEquals(10L, data.get("totalUsers"));
+        // Query quá hạn bị hủy thay vì chạy tiếp trên thread của pool
+        assertTrue(interrupted.await(QUERY_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void getDashboardStats_servesSnapshotWithinFreshnessWindow() {
+        DashboardSnapshotCache cache = new DashboardSnapshotCache(60_000, 600_000, 1);
+        DashboardServiceImpl service = newService(cache);
+        when(userRepository.count()).thenReturn(10L);
+
+        ApiResponse<Map<String, Object>> first = service.getDashboardStats();
+        ApiResponse<Map<String, Object>> second = service.getDashboardStats();
+        cache.shutdown();
+
+        assertEquals(10L, second.getData().get("totalUsers"));
+        assertEquals(false, second.getData().get("stale"));
+        assertEquals(first.getData().get("snapshotTakenAt"), second.getData().get("snapshotTakenAt"));
+        verify(userRepository, times(1)).count();
+    }
+
+    @Test
+    void getRevenueStats_readsRollups() {
+        when(paymentRollupService.summarize(any(), any())).thenReturn(summary(new BigDecimal("1000"), 3));
+
+        ApiResponse<Map<String, Object>> response = dashboardService.getRevenueStats("year");
+
+        assertTrue(response.isSuccess());
+        assertEquals(new BigDecimal("1000"), response.getData().get("totalRevenue"));
+        assertEquals(3L, response.getData().get("totalPayments"));
+        assertEquals(new BigDecimal("333.33"), response.getData().get("avgPaymentValue"));
+        // Doanh thu theo kỳ không được tính lại từ bảng payments
+        verify(paymentRepository, never()).getRevenueByDateRange(any(), any());
+    }
+
+    @Test
+    void getUserStats_usesCounts() {
+        assertTrue(dashboardService.getUserStats().isSuccess());
+    }
+
+    @Test
+    void getProductStats_usesGroupedCounts() {
+        when(productRepository.countProductsGroupedByCategory())
+                .thenReturn(List.<Object[]>of(new Object[]{"CPU", 7L}, new Object[]{"RAM", 0L}));
+
+        ApiResponse<Map<String, Object>> response = dashboardService.getProductStats();
+
+        assertTrue(response.isSuccess());
+        assertEquals(Map.of("CPU", 7L, "RAM", 0L), response.getData().get("productsByCategory"));
+    }
+
+    @Test
+    void getOrderStats_readsPeriodCountsFromRollups() {
+        when(paymentRollupService.summarize(any(), any())).thenReturn(summary(BigDecimal.ZERO, 0));
+
+        assertTrue(dashboardService.getOrderStats().isSuccess());
+    }
+
+    // Helper methods
+    private DashboardServiceImpl newService(DashboardSnapshotCache cache) {
+        return new DashboardServiceImpl(userRepository, productRepository, categoryRepository,
+                blogRepository, paymentRepository, paymentRollupService, dashboardQueryRunner, cache, paymentSketchService);
+    }
+
+    private static <T> T sleepAndReturn(long millis, T value) throws InterruptedException {
+        Thread.sleep(millis);
+        return value;
+    }
+
+    private PaymentRollupService.Summary summary(BigDecimal revenue, long orders) {
+        PaymentRollupService.Totals completed = new PaymentRollupService.Totals(revenue, orders, orders);
+        return new PaymentRollupService.Summary(RollupGranularity.MONTH,
+                Map.of(PaymentStatus.COMPLETED.name(), completed), completed, Map.of(), Map.of(), List.of());
+    }
+
+    private void verifyNoFindAll(JpaRepository<?, ?> repository) {
+        verify(repository, never()).findAll();
+        verify(repository, never()).findAll(any(Sort.class));
+        verify(repository, never()).findAll(any(Pageable.class));
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.ComputerStore.service.impl;
+
+import com.example.ComputerStore.entity.Category;
+import com.example.ComputerStore.entity.Product;
+import com.example.ComputerStore.entity.StockReservation;
+import com.example.ComputerStore.enumeric.ComponentType;
+import com.example.ComputerStore.enumeric.ReservationSource;
+import com.example.ComputerStore.repository.CategoryRepository;
+import com.example.ComputerStore.repository.ProductRepository;
+import com.example.ComputerStore.repository.StockReservationRepository;
+import com.example.ComputerStore.service.StockReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test giữ hàng: nhiều thread cùng giành một SKU "hot", tổng số lượng giữ thành công
+ * không được vượt quá tồn kho và tồn kho không bao giờ âm
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.stock.hold-ttl-ms=900000"
+})
+@Import(StockReservationServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceImplTest {
+
+    private static final int INITIAL_STOCK = 100;
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS = 400;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setName("Flash sale");
+        category = categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setName("Hot SKU");
+        product.setPrice(BigDecimal.valueOf(1_000_000));
+        product.setDiscount(BigDecimal.ZERO);
+        product.setDescription("Flash sale");
+        product.setImages("[]");
+        product.setStock(INITIAL_STOCK);
+        product.setComponentType(ComponentType.VGA);
+        product.setCategory(category);
+        productId = productRepository.save(product).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockReservationRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentHoldsOnHotSkuNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            UUID userId = UUID.randomUUID();
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.hold(userId, productId, ReservationSource.CART, 1);
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(INITIAL_STOCK, succeeded.get());
+        assertEquals(ATTEMPTS - INITIAL_STOCK, rejected.get());
+        assertEquals(0, productRepository.findStockById(productId).orElseThrow());
+        assertEquals(INITIAL_STOCK, heldTotal());
+    }
+
+    @Test
+    void concurrentQuantityChangesOnSameLineKeepStockConsistent() throws Exception {
+        UUID userId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int quantity = 1 + (i % 7);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.hold(userId, productId, ReservationSource.CART, quantity);
+                } catch (RuntimeException e) {
+                    // Hai lần giữ đầu tiên cùng insert một dòng: một bên vi phạm unique key và bị loại
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int held = stockReservationService.heldQuantity(userId, productId, ReservationSource.CART);
+        assertEquals(INITIAL_STOCK, productRepository.findStockById(productId).orElseThrow() + held);
+    }
+
+    @Test
+    void holdBeyondStockIsRejected() {
+        UUID userId = UUID.randomUUID();
+        stockReservationService.hold(userId, productId, ReservationSource.CART, 60);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> stockReservationService.hold(UUID.randomUUID(), productId, ReservationSource.BUILD_PC, 41));
+        assertTrue(error.getMessage().contains("40"));
+
+        // Giảm số lượng trả bớt về kho, hủy giữ trả hết
+        stockReservationService.hold(userId, productId, ReservationSource.CART, 10);
+        assertEquals(90, productRepository.findStockById(productId).orElseThrow());
+        stockReservationService.release(userId, productId, ReservationSource.CART);
+        assertEquals(INITIAL_STOCK, productRepository.findStockById(productId).orElseThrow());
+    }
+
+    @Test
+    void expiredHoldsAreReturnedToStock() {
+        UUID expiredUser = UUID.randomUUID();
+        UUID activeUser = UUID.randomUUID();
+        stockReservationService.hold(expiredUser, productId, ReservationSource.CART, 30);
+        stockReservationService.hold(activeUser, productId, ReservationSource.CART, 20);
+
+        StockReservation expired = stockReservationRepository
+                .findByUserIdAndProductIdAndSource(expiredUser, productId, ReservationSource.CART)
+                .orElseThrow();
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        stockReservationRepository.save(expired);
+
+        assertEquals(1, stockReservationService.expireDue());
+        assertEquals(80, productRepository.findStockById(productId).orElseThrow());
+        assertEquals(0, stockReservationService.heldQuantity(expiredUser, productId, ReservationSource.CART));
+        assertEquals(20, stockReservationService.heldQuantity(activeUser, productId, ReservationSource.CART));
+
+        // Chạy lại không trả kho lần nữa
+        assertEquals(0, stockReservationService.expireDue());
+        assertEquals(80, productRepository.findStockById(productId).orElseThrow());
+    }
+
+    @Test
+    void commitKeepsStockDecremented() {
+        UUID userId = UUID.randomUUID();
+        stockReservationService.hold(userId, productId, ReservationSource.CART, 5);
+
+        assertEquals(5, stockReservationService.commit(userId, productId, ReservationSource.CART));
+        assertEquals(0, stockReservationService.commit(userId, productId, ReservationSource.CART));
+        assertEquals(95, productRepository.findStockById(productId).orElseThrow());
+    }
+
+    private int heldTotal() {
+        return stockReservationRepository.findAll().stream().mapToInt(StockReservation::getQuantity).sum();
+    }
+}
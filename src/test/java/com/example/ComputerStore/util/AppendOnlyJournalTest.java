@@ -0,0 +1,64 @@
+package com.example.ComputerStore.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Segment journal: rotate niêm phong segment đang ghi, chỉ segment đã niêm phong được đọc / xóa,
+ * và segment của lần chạy trước vẫn đọc được sau khi mở lại
+ */
+class AppendOnlyJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rotateSealsCurrentSegment() {
+        try (AppendOnlyJournal journal = new AppendOnlyJournal(directory, "test", false)) {
+            journal.append("a");
+            journal.append("b");
+            long sealed = journal.rotate();
+            journal.append("c");
+
+            assertEquals(List.of("a", "b"), journal.readUpTo(sealed));
+
+            // Xóa segment đã niêm phong không chạm bản ghi đang ở segment hiện tại
+            journal.deleteUpTo(sealed);
+            assertTrue(journal.readUpTo(sealed).isEmpty());
+            long next = journal.rotate();
+            assertEquals(List.of("c"), journal.readUpTo(next));
+        }
+    }
+
+    @Test
+    void reopenedJournalReadsSegmentsOfPreviousRun() {
+        try (AppendOnlyJournal journal = new AppendOnlyJournal(directory, "test", true)) {
+            journal.append("x");
+            journal.append("y");
+        }
+
+        try (AppendOnlyJournal reopened = new AppendOnlyJournal(directory, "test", false)) {
+            reopened.append("z");
+            long sealed = reopened.rotate();
+            assertEquals(List.of("x", "y", "z"), reopened.readUpTo(sealed));
+        }
+    }
+
+    @Test
+    void journalsWithDifferentPrefixesDoNotMix() {
+        try (AppendOnlyJournal carts = new AppendOnlyJournal(directory, "cart", false);
+             AppendOnlyJournal others = new AppendOnlyJournal(directory, "other", false)) {
+            carts.append("cart-record");
+            others.append("other-record");
+
+            assertEquals(List.of("cart-record"), carts.readUpTo(carts.rotate()));
+            assertEquals(List.of("other-record"), others.readUpTo(others.rotate()));
+        }
+    }
+}